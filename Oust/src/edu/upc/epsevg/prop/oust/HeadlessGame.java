@@ -9,8 +9,17 @@ import java.awt.Point;
 import java.lang.ref.WeakReference;
 
 import java.util.ArrayList;
-import java.util.concurrent.Semaphore;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -20,163 +29,616 @@ import java.util.logging.Logger;
  */
 public class HeadlessGame {
 
-    private IPlayer players[];
-    private GameStatus status;
-    private int gameCount;
-    private int timeout;
-    private int size;
+    private final Supplier<IPlayer> first;
+    private final Supplier<IPlayer> second;
+    private final int size;
+    private final int gameCount;
+    private final int timeout;
+    private final int threads;
+    private final boolean swapColours;
+    private boolean forceGc = false;
+    private Sprt sprt;
+    private int megabytesPerGame = 0;   // 0 = no se sap
+
+    // Fils reutilitzats per calcular moviments i per avisar del timeout
+    private ExecutorService movers;
+    private ScheduledExecutorService watchdog;
+
+    // Mida amb què GameStatus ha dimensionat les seves taules estàtiques
+    private static int reservedSize;
     
     public static void main(String[] args) {
 
 
-        IPlayer player1 = new MalaOustiaPlayer();        
-        IPlayer player2 = new MOustValuablePlayer();
-        
-        
-        HeadlessGame game1 = new HeadlessGame(player1, player2, 7, 3/*s timeout*/, 5/*games*/);
-        GameResult gr1 = game1.start();
-        System.out.println(gr1);
-        
-        HeadlessGame game2 = new HeadlessGame(player2, player1, 7, 3/*s timeout*/, 5/*games*/);
-        GameResult gr2 = game2.start();       
-        System.out.println(gr2);
+        // Totes dues sortides, en paral·lel i canviant de color a cada partida
+        HeadlessGame game = new HeadlessGame(MalaOustiaPlayer::new, MOustValuablePlayer::new,
+                7, 3/*s timeout*/, 10/*games*/,
+                Runtime.getRuntime().availableProcessors());
+        //game.setSprt(0, 50, 0.05, 0.05);
+        GameResult gr = game.start();
+        System.out.println(gr);
 
     }
 
     //=====================================================================================0
+    /**
+     * Partides seqüencials entre dues instàncies fixes: p1 sempre juga amb
+     * PLAYER1.
+     */
     public HeadlessGame(IPlayer p1, IPlayer p2, int size, int timeout, int gameCount) {
+        this.first = () -> p1;
+        this.second = () -> p2;
+        this.size = size;
+        this.gameCount = gameCount;
+        this.timeout = timeout;
+        this.threads = 1;
+        this.swapColours = false;
+    }
+
+    /**
+     * Torneig: gameCount partides jugades a la vegada en un pool de
+     * {@code threads} fils. Cada partida fa servir jugadors nous dels
+     * proveïdors i, a les partides senars, el segon juga amb PLAYER1.
+     *
+     * Cada moviment té el seu timeout de rellotge: amb més fils que nuclis
+     * els jugadors es reparteixen la CPU i pensen menys per moviment.
+     *
+     * Cada partida té els seus dos jugadors vius alhora: dos
+     * IDSMinimaxPlayer per defecte són 256 MB de TT. Cal prou heap (-Xmx)
+     * per a {@code threads} partides, o bé proveïdors que creïn jugadors amb
+     * una TT més petita; amb {@link #setMegabytesPerGame} es limita el
+     * paral·lelisme al que hi cap.
+     *
+     * Es poden jugar partits de mides diferents a la mateixa JVM, un
+     * després de l'altre, si el primer és el de mida més gran (o abans es
+     * crida {@link #reserveSize}).
+     */
+    public HeadlessGame(Supplier<IPlayer> p1, Supplier<IPlayer> p2, int size, int timeout, int gameCount, int threads) {
+        this.first = p1;
+        this.second = p2;
         this.size = size;
-        this.players = new IPlayer[2];
-        players[0] = p1;
-        players[1] = p2;
         this.gameCount = gameCount;
         this.timeout = timeout;
+        this.threads = Math.max(1, threads);
+        this.swapColours = true;
+    }
+
+    /**
+     * Si és cert, després de cada moviment es força una recollida de
+     * memòria completa ({@link #gc()}), com feia abans sempre. Costa desenes
+     * de ms per moviment i, amb partides en paral·lel, les atura totes.
+     */
+    public void setForceGc(boolean forceGc) {
+        this.forceGc = forceGc;
+    }
+
+    /**
+     * Memòria que necessita una partida, amb els dos jugadors (MB). El
+     * torneig no juga més partides a la vegada de les que caben en tres
+     * quarts del heap, i no comença si no n'hi cap cap.
+     */
+    public void setMegabytesPerGame(int megabytes) {
+        this.megabytesPerGame = megabytes;
+    }
+
+    /**
+     * Mode SPRT: el partit s'atura tan bon punt el test seqüencial decideix
+     * entre H0 (el primer jugador té elo0 respecte al segon) i H1 (en té
+     * elo1), amb errors de tipus I i II alpha i beta. gameCount passa a
+     * ser el màxim de partides.
+     */
+    public void setSprt(double elo0, double elo1, double alpha, double beta) {
+        if (elo1 <= elo0) throw new IllegalArgumentException("SPRT: elo1 ha de ser més gran que elo0");
+        if (alpha <= 0 || alpha >= 1 || beta <= 0 || beta >= 1) {
+            throw new IllegalArgumentException("SPRT: alpha i beta han d'estar entre 0 i 1");
+        }
+        this.sprt = new Sprt(elo0, elo1, alpha, beta);
+    }
+
+    /**
+     * GameStatus dimensiona unes taules estàtiques amb la primera mida que
+     * es fa servir a la JVM, i després només serveixen per a aquesta mida o
+     * més petites. Per jugar partits de diverses mides cal cridar-ho abans
+     * amb la més gran, o començar per aquesta.
+     */
+    public static void reserveSize(int maxSize) {
+        prepare(maxSize);
+    }
+
+    /**
+     * Deixa les taules estàtiques de GameStatus llestes per a {@code size}
+     * des d'aquest fil: les crea (o les refà en canviar de mida) sense
+     * sincronitzar, i les partides en paral·lel no ho poden fer alhora.
+     */
+    private static synchronized void prepare(int size) {
+        if (reservedSize == 0) {
+            reservedSize = size;
+        } else if (size > reservedSize) {
+            throw new IllegalStateException("GameStatus ja té taules per a mida " + reservedSize
+                    + ": cal començar per la mida més gran (" + size + ") o cridar reserveSize()");
+        }
+        GameStatus warm = new GameStatus(size);
+        warm.placeStone(warm.getMoves().get(0));
     }
 
     public GameResult start() {
-        GameResult gr = new GameResult();
-        for (int i = 0; i < gameCount; i++) {
-            //System.out.println(">" + i);
-            gr.update(play(players[0], players[1]));
+        prepare(size);
+        GameResult gr = new GameResult(sprt);
+        movers = Executors.newCachedThreadPool(daemon("HeadlessGame-mover"));
+        watchdog = Executors.newSingleThreadScheduledExecutor(daemon("HeadlessGame-watchdog"));
+        try {
+            run(gr);
+        } finally {
+            movers.shutdownNow();
+            watchdog.shutdownNow();
         }
         return gr;
     }
 
-    private class Result {
-        public boolean ok;
+    private void run(GameResult gr) {
+        long t0 = System.nanoTime();
+        if (threads == 1) {
+            for (int i = 0; i < gameCount && !gr.decided(); i++) {
+                //System.out.println(">" + i);
+                Game g = playSafely(i, true);
+                if (g == null) gr.failed(); else gr.update(g);
+            }
+        } else {
+            ExecutorService pool = Executors.newFixedThreadPool(parallelGames());
+            try {
+                List<Future<?>> pending = new ArrayList<>();
+                for (int i = 0; i < gameCount; i++) {
+                    final int n = i;
+                    pending.add(pool.submit(() -> {
+                        // Les que encara no han començat ja no cal jugar-les
+                        if (gr.decided()) return;
+                        Game g = playSafely(n, false);
+                        if (g == null) {
+                            gr.failed();
+                            return;
+                        }
+                        gr.update(g);
+                        System.out.println(g);
+                    }));
+                }
+                for (Future<?> f : pending) f.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException ex) {
+                // playSafely() ja recull els errors de cada partida
+                Logger.getLogger(HeadlessGame.class.getName()).log(Level.SEVERE, null, ex.getCause());
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+        gr.setWallTime(System.nanoTime() - t0);
+    }
+
+    /** Partides a la vegada: {@code threads}, si hi caben al heap. */
+    private int parallelGames() {
+        if (megabytesPerGame <= 0) return threads;
+        long heap = Runtime.getRuntime().maxMemory() / (1024 * 1024);
+        long fit = heap * 3 / 4 / megabytesPerGame;
+        if (fit < 1) {
+            throw new IllegalStateException("Una partida necessita " + megabytesPerGame
+                    + " MB i el heap és de " + heap + " MB: cal més -Xmx");
+        }
+        if (fit < threads) {
+            System.out.println("Amb " + heap + " MB de heap només hi caben " + fit
+                    + " partides a la vegada (de " + threads + ")");
+            return (int) fit;
+        }
+        return threads;
+    }
+
+    /** Fils dimoni: un jugador que no torna mai no impedeix acabar. */
+    private static ThreadFactory daemon(String name) {
+        return r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        };
     }
 
-    private PlayerType play(IPlayer player, IPlayer player0) {
-        this.status = new GameStatus(size);
+    /**
+     * Com playGame(), però una partida que falla fora dels jugadors (un
+     * proveïdor que peta, memòria esgotada...) torna null en lloc d'aturar
+     * el torneig: es registra com a error i les altres continuen.
+     */
+    private Game playSafely(int index, boolean verbose) {
+        try {
+            return playGame(index, verbose);
+        } catch (RuntimeException | Error ex) {
+            Logger.getLogger(HeadlessGame.class.getName()).log(Level.SEVERE, "Partida " + index, ex);
+            return null;
+        }
+    }
 
-        while (!this.status.isGameOver()) {
+    /**
+     * Juga la partida {@code index} amb jugadors nous i el color que li
+     * toca, i la desa des del punt de vista del primer.
+     */
+    private Game playGame(int index, boolean verbose) {
+        boolean swapped = swapColours && index % 2 == 1;
+        IPlayer a = first.get();
+        IPlayer b = second.get();
+        Game g = new Game(swapped, a.getName(), b.getName());
+        try {
+            newGame(a);
+            newGame(b);
+            play(swapped ? new IPlayer[] {b, a} : new IPlayer[] {a, b}, g, verbose);
+        } finally {
+            close(a);
+            close(b);
+        }
+        return g;
+    }
 
-            final Semaphore semaphore = new Semaphore(1);
-            semaphore.tryAcquire();
+    /**
+     * Buida el que el jugador recordi de les partides anteriors (si és
+     * INewGame): amb instàncies fixes, o proveïdors que tornen sempre la
+     * mateixa, una partida no ha d'influir en les següents.
+     */
+    private static void newGame(IPlayer player) {
+        if (player instanceof INewGame) ((INewGame) player).newGame();
+    }
+
+    /**
+     * Allibera els fils que el jugador tingui en marxa (si és
+     * AutoCloseable): en un torneig se'n creen dos a cada partida.
+     */
+    private static void close(IPlayer player) {
+        if (!(player instanceof AutoCloseable)) return;
+        try {
+            ((AutoCloseable) player).close();
+        } catch (Exception ex) {
+            Logger.getLogger(HeadlessGame.class.getName()).log(Level.WARNING, null, ex);
+        }
+    }
+
+    private static class Result {
+        public PlayerMove move;
+        public long nanos;
+    }
+
+    /**
+     * Juga una partida sencera; players[0] juga amb PLAYER1. El rellotge de
+     * cada color i el guanyador queden a {@code g}.
+     *
+     * Cada moviment es calcula en un fil del pool {@code movers} mentre
+     * aquest fil l'espera; l'avís de timeout() es programa a
+     * {@code watchdog} i es cancel·la tan bon punt arriba la jugada.
+     */
+    private void play(IPlayer[] players, Game g, boolean verbose) {
+        final GameStatus status = new GameStatus(size);
+        final long WAIT_EXTRA_TIME = 2000;
+
+        while (!status.isGameOver()) {
 
-            final Result r = new Result();
             final PlayerType cp = status.getCurrentPlayer();
-            Thread t1 = new Thread(() -> {
-                PlayerMove m = null;
-                try {
-                    m = players[cp == PlayerType.PLAYER1 ? 0 : 1].move(new GameStatus(status));
-                } catch(Exception ex) {
-                    System.out.println("Excepció descontrolada al player:"+cp.name());
-                    ex.printStackTrace();
-                }
-                if (m != null) {
-                    
-                    try {
-                    
-                        for(Point p:m.getPoints()){
-                            if(cp != status.getCurrentPlayer()) throw new Exception("Invalid move sequence, non-capturing move should be the last.");
-                            status.placeStone(p);
-                        }
-                        if( !status.isGameOver() && cp == status.getCurrentPlayer()) throw new Exception("Invalid move sequence, it must end in non-capturing move.");
-                    }catch(Exception ex){
-                        System.out.println("Excepció descontrolada al player:"+cp.name());
-                        ex.printStackTrace();
-                        status.forceLoser(cp);    
-                    }                    
-                    
-                } else {
-                    status.forceLoser(cp);
-                }
-                System.out.print(cp==PlayerType.PLAYER1?"1":"2");
-                System.out.print( "["+status.diff()+"] " );
-                r.ok = true;
-                semaphore.release();
-            });
+            final IPlayer player = players[cp == PlayerType.PLAYER1 ? 0 : 1];
+            long t0 = System.nanoTime();
 
-            Thread t2 = new Thread(() -> {
+            Future<Result> task = movers.submit(() -> {
+                Result r = new Result();
+                GameStatus copy = new GameStatus(status);
+                long start = System.nanoTime();
                 try {
-                    Thread.sleep(HeadlessGame.this.timeout * 1000);
-                } catch (InterruptedException ex) {
-                }
-                if (!r.ok) {
-                    players[cp == PlayerType.PLAYER1 ? 0 : 1].timeout();
+                    r.move = player.move(copy);
+                } finally {
+                    r.nanos = System.nanoTime() - start;
                 }
+                return r;
             });
+            ScheduledFuture<?> alarm = watchdog.schedule(player::timeout, timeout, TimeUnit.SECONDS);
 
-            t1.start();
-            t2.start();
-            long WAIT_EXTRA_TIME = 2000;
+            Result r = null;
             try {
-                if (!semaphore.tryAcquire(1, timeout * 1000 + WAIT_EXTRA_TIME, TimeUnit.MILLISECONDS)) {
-
+                try {
+                    r = task.get(timeout * 1000 + WAIT_EXTRA_TIME, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException ex) {
                     System.out.println("Espera il·legal ! Player trampós:"+cp.name());
                     //throw new RuntimeException("Jugador trampós ! Espera il·legal !");
                     // Som millors persones deixant que el jugador il·legal continui jugant...
-                    semaphore.acquire();
+                    r = task.get();
                 }
-
+            } catch (ExecutionException ex) {
+                System.out.println("Excepció descontrolada al player:"+cp.name());
+                ex.getCause().printStackTrace();
             } catch (InterruptedException ex) {
                 Logger.getLogger(HeadlessGame.class.getName()).log(Level.SEVERE, null, ex);
+                Thread.currentThread().interrupt();
+                return;
+            }
+            alarm.cancel(false);
+
+            PlayerMove m = r == null ? null : r.move;
+            if (m != null) {
+                
+                try {
+                
+                    for(Point p:m.getPoints()){
+                        if(cp != status.getCurrentPlayer()) throw new Exception("Invalid move sequence, non-capturing move should be the last.");
+                        status.placeStone(p);
+                    }
+                    if( !status.isGameOver() && cp == status.getCurrentPlayer()) throw new Exception("Invalid move sequence, it must end in non-capturing move.");
+                }catch(Exception ex){
+                    System.out.println("Excepció descontrolada al player:"+cp.name());
+                    ex.printStackTrace();
+                    status.forceLoser(cp);    
+                }                    
+                
+            } else {
+                status.forceLoser(cp);
             }
-            // Netegem la memòria (for free!)
-            gc();
+            if (verbose) {
+                System.out.print(cp==PlayerType.PLAYER1?"1":"2");
+                System.out.print( "["+status.diff()+"] " );
+            }
+            // Netegem la memòria (for free!), només si ho han demanat
+            if (forceGc) gc();
+
+            // Tot el que no és pensar el jugador és cost del marc
+            long think = r == null ? 0 : r.nanos;
+            g.clock(cp, think, System.nanoTime() - t0 - think);
             
         }
-        System.out.println("|||| WINNER:"+ (status.GetWinner()==PlayerType.PLAYER1?"1":"2"));
-        return status.GetWinner();
+        if (verbose) System.out.println("|||| WINNER:"+ (status.GetWinner()==PlayerType.PLAYER1?"1":"2"));
+        g.finish(status.GetWinner());
     }
 
-    private class GameResult {
+    /**
+     * Una partida vista des del primer jugador (A) i el segon (B): qui
+     * guanya i quant temps ha pensat cadascú.
+     */
+    private static class Game {
+
+        final boolean swapped;   // B juga amb PLAYER1
+        final String nameA, nameB;
+        PlayerType winner;       // color guanyador, null si empat
 
-        java.util.List<PlayerType> results;
+        final long[] nanos = new long[2];      // A, B
+        final long[] maxNanos = new long[2];
+        final long[] overheadNanos = new long[2];
+        final int[] moves = new int[2];
 
-        public GameResult() {
-            results = new ArrayList<PlayerType>();
+        Game(boolean swapped, String nameA, String nameB) {
+            this.swapped = swapped;
+            this.nameA = nameA;
+            this.nameB = nameB;
+        }
 
+        /** 0 si el color {@code c} és A, 1 si és B. */
+        int engine(PlayerType c) {
+            return (c == PlayerType.PLAYER1) != swapped ? 0 : 1;
         }
 
-        public void update(PlayerType res) {
-            results.add(res);
+        void clock(PlayerType c, long n, long overhead) {
+            int e = engine(c);
+            nanos[e] += n;
+            maxNanos[e] = Math.max(maxNanos[e], n);
+            overheadNanos[e] += overhead;
+            moves[e]++;
+        }
+
+        void finish(PlayerType w) {
+            winner = w;
+        }
+
+        /** 0 si guanya A, 1 si guanya B, -1 si empat. */
+        int winnerEngine() {
+            return winner == null ? -1 : engine(winner);
         }
 
         @Override
         public String toString() {
+            int w = winnerEngine();
+            return (swapped ? "B-A" : "A-B")
+                    + "  guanya " + (w < 0 ? "ningú" : w == 0 ? "A" : "B")
+                    + String.format("  ms/moviment A %.1f B %.1f",
+                            nanos[0] / 1e6 / Math.max(1, moves[0]),
+                            nanos[1] / 1e6 / Math.max(1, moves[1]));
+        }
+    }
+
+    /**
+     * Test seqüencial de raó de versemblança (SPRT) de Wald sobre el
+     * resultat del primer jugador: cada partida és una Bernoulli amb
+     * probabilitat de guanyar score(elo0) sota H0 i score(elo1) sota H1
+     * (Elo logístic), i un empat compta com mitja victòria i mitja derrota.
+     * Les partides de tots dos colors compten igual.
+     *
+     * No fem servir la GSPRT amb la variància observada (fishtest,
+     * cutechess-cli): a Oust no hi ha empats i, amb una ratxa de victòries,
+     * la variància és zero i decidiria després d'una sola partida.
+     */
+    private static class Sprt {
+
+        final double elo0, elo1, alpha, beta;
+        final double lower, upper;
+
+        Sprt(double elo0, double elo1, double alpha, double beta) {
+            this.elo0 = elo0;
+            this.elo1 = elo1;
+            this.alpha = alpha;
+            this.beta = beta;
+            lower = Math.log(beta / (1 - alpha));
+            upper = Math.log((1 - beta) / alpha);
+        }
+
+        /** Logaritme de la raó de versemblança de H1 contra H0. */
+        double llr(int w, int d, int l) {
+            double p0 = score(elo0), p1 = score(elo1);
+            return (w + 0.5 * d) * Math.log(p1 / p0) + (l + 0.5 * d) * Math.log((1 - p1) / (1 - p0));
+        }
+
+        /** 1 si accepta H1, -1 si accepta H0, 0 si encara no ho sap. */
+        int verdict(int w, int d, int l) {
+            if (w + d + l == 0) return 0;
+            double llr = llr(w, d, l);
+            return llr >= upper ? 1 : llr <= lower ? -1 : 0;
+        }
+
+        String report(int w, int d, int l, int v) {
+            return String.format("SPRT elo0=%.1f elo1=%.1f alpha=%.3f beta=%.3f: LLR %.2f [%.2f, %.2f] %s",
+                    elo0, elo1, alpha, beta, llr(w, d, l), lower, upper,
+                    v > 0 ? "H1 acceptada" : v < 0 ? "H0 acceptada" : "sense decidir");
+        }
+
+        /** Puntuació esperada amb una diferència de {@code elo}. */
+        static double score(double elo) {
+            return 1 / (1 + Math.pow(10, -elo / 400));
+        }
+
+        /** Diferència d'Elo per a una puntuació mitjana {@code s}. */
+        static double eloOf(double s) {
+            s = Math.min(Math.max(s, 1e-6), 1 - 1e-6);
+            return -400 * Math.log10(1 / s - 1);
+        }
+
+        /** Elo estimat i mitja amplada de l'interval del 95%. */
+        static double[] elo(int w, int d, int l) {
+            int n = w + d + l;
+            double s = (w + 0.5 * d) / n;
+            double var = (w * (1 - s) * (1 - s) + d * (0.5 - s) * (0.5 - s) + l * s * s) / n;
+            double margin = 1.959964 * Math.sqrt(var / n);
+            double lo = eloOf(s - margin), hi = eloOf(s + margin);
+            return new double[] {eloOf(s), (hi - lo) / 2};
+        }
+
+        /** Probabilitat que el primer jugador sigui més fort (empats a part). */
+        static double los(int w, int l) {
+            if (w + l == 0) return 0.5;
+            return 0.5 * (1 + erf((w - l) / Math.sqrt(2.0 * (w + l))));
+        }
+
+        // Abramowitz i Stegun 7.1.26 (error < 1.5e-7)
+        private static double erf(double x) {
+            double t = 1 / (1 + 0.3275911 * Math.abs(x));
+            double y = 1 - t * (0.254829592 + t * (-0.284496736 + t * (1.421413741
+                    + t * (-1.453152027 + t * 1.061405429)))) * Math.exp(-x * x);
+            return x >= 0 ? y : -y;
+        }
+    }
+
+    /**
+     * Resultat agregat d'un o més partits. Les partides d'un torneig hi
+     * arriben des de diversos fils: update() i toString() estan
+     * sincronitzats. "PLAYER 1" és sempre el primer jugador, encara que
+     * en un torneig jugui la meitat de partides amb l'altre color.
+     */
+    private static class GameResult {
+
+        // Els de la primera partida: així no cal crear jugadors només pel nom
+        private String name1 = "?", name2 = "?";
+        private final java.util.List<Game> results;
+        private final Sprt sprt;      // null si no hi ha SPRT
+        private int wins, ties, looses;
+        private int errors;           // partides que no s'han pogut jugar
+        private int verdict;          // de l'SPRT, fix un cop decidit
+        private int decidedAt;        // partides quan s'ha decidit
+        private long wallNanos;
+
+        public GameResult(Sprt sprt) {
+            this.sprt = sprt;
+            results = new ArrayList<Game>();
+
+        }
+
+        public synchronized void update(Game res) {
+            if (results.isEmpty()) {
+                name1 = res.nameA;
+                name2 = res.nameB;
+            }
+            results.add(res);
+            int w = res.winnerEngine();
+            if (w < 0) ties++; else if (w == 0) wins++; else looses++;
+            // Les partides que ja estaven en marxa compten per a l'Elo
+            // però no canvien la decisió
+            if (sprt != null && verdict == 0) {
+                verdict = sprt.verdict(wins, ties, looses);
+                if (verdict != 0) decidedAt = results.size();
+            }
+        }
+
+        /** Una partida que ha fallat: no compta per a cap jugador. */
+        synchronized void failed() {
+            errors++;
+        }
+
+        /** Cert si l'SPRT ja ha acceptat H0 o H1. */
+        synchronized boolean decided() {
+            return verdict != 0;
+        }
+
+        synchronized void setWallTime(long nanos) {
+            wallNanos = nanos;
+        }
+
+        @Override
+        public synchronized String toString() {
             String res = "\n ================================================================="+
                          "\n ================       RESULTS       ============================"+
                          "\n =================================================================\n";
             int wins1 = 0, ties1 = 0, loose1 = 0;
-            for (PlayerType c : results) {
-                if (null == c) {
+            long[] nanos = new long[2], maxNanos = new long[2], overheadNanos = new long[2];
+            int[] moves = new int[2];
+            int[][] byColour = new int[2][3];
+            for (Game g : results) {
+                int w = g.winnerEngine();
+                if (w < 0) {
                     ties1++;
+                } else if (w == 0) {
+                    wins1++;
                 } else {
-                    switch (c) {
-                        case PLAYER1:
-                            wins1++;
-                            break;
-                        default:
-                            loose1++;
-                            break;
-                    }
+                    loose1++;
                 }
+                for (int e = 0; e < 2; e++) {
+                    nanos[e] += g.nanos[e];
+                    maxNanos[e] = Math.max(maxNanos[e], g.maxNanos[e]);
+                    overheadNanos[e] += g.overheadNanos[e];
+                    moves[e] += g.moves[e];
+                }
+                // wins, ties, looses del primer jugador per color
+                byColour[g.swapped ? 1 : 0][w < 0 ? 1 : w == 0 ? 0 : 2]++;
             }
 
-            res += "PLAYER 1 (" + pad(players[0].getName(), 40) + "):\t wins " + wins1 + "\t ties:" + ties1 + "\t looses:" + loose1 + "\n";
-            res += "PLAYER 2 (" + pad(players[1].getName(), 40) + "):\t wins " + loose1 + "\t ties:" + ties1 + "\t looses:" + wins1 + "\n";
+            res += "PLAYER 1 (" + pad(name1, 40) + "):\t wins " + wins1 + "\t ties:" + ties1 + "\t looses:" + loose1 + "\n";
+            res += "PLAYER 2 (" + pad(name2, 40) + "):\t wins " + loose1 + "\t ties:" + ties1 + "\t looses:" + wins1 + "\n";
+            if (byColour[1][0] + byColour[1][1] + byColour[1][2] > 0) {
+                for (int c = 0; c < 2; c++) {
+                    int[] row = byColour[c];
+                    res += "  PLAYER 1 amb " + (c == 0 ? "PLAYER1" : "PLAYER2") + ":\t wins " + row[0] + "\t ties:" + row[1] + "\t looses:" + row[2] + "\n";
+                }
+            }
+            for (int e = 0; e < 2; e++) {
+                res += String.format("PLAYER %d: %d moviments, %.1f ms/moviment, màxim %.1f ms, cost del marc %.2f ms/moviment%n",
+                        e + 1, moves[e], nanos[e] / 1e6 / Math.max(1, moves[e]), maxNanos[e] / 1e6,
+                        overheadNanos[e] / 1e6 / Math.max(1, moves[e]));
+            }
+            if (errors > 0) {
+                res += "Partides amb error (no compten): " + errors + "\n";
+            }
+            if (wallNanos > 0) {
+                res += String.format("%d partides en %.1f s (%.2f partides/s)%n",
+                        results.size(), wallNanos / 1e9, results.size() * 1e9 / wallNanos);
+            }
+            if (wins + ties == 0 || looses + ties == 0) {
+                // Sense derrotes (o sense victòries) l'Elo és infinit
+                res += String.format("Elo PLAYER 1: %s, LOS %.1f%%%n",
+                        wins > looses ? "+inf" : looses > wins ? "-inf" : "?", 100 * Sprt.los(wins, looses));
+            } else {
+                double[] elo = Sprt.elo(wins, ties, looses);
+                res += String.format("Elo PLAYER 1: %+.1f +/- %.1f (95%%), LOS %.1f%%%n",
+                        elo[0], elo[1], 100 * Sprt.los(wins, looses));
+            }
+            if (sprt != null) {
+                res += sprt.report(wins, ties, looses, verdict);
+                if (verdict != 0 && decidedAt < results.size()) {
+                    res += " (a la partida " + decidedAt + ")";
+                }
+                res += "\n";
+            }
             return res;
         }
 
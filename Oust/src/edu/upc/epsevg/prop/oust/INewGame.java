@@ -0,0 +1,12 @@
+package edu.upc.epsevg.prop.oust;
+
+/**
+ * Jugador que guarda estat d'una partida per a la següent (taules de
+ * transposició, d'ordenació...). HeadlessGame crida {@link #newGame()} abans
+ * de cada partida perquè el resultat no depengui de l'ordre de les partides.
+ */
+public interface INewGame {
+
+    /** Oblida tot el que s'ha après a les partides anteriors. */
+    void newGame();
+}
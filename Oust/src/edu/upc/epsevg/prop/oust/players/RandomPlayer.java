@@ -7,10 +7,12 @@ import edu.upc.epsevg.prop.oust.IPlayer;
 import edu.upc.epsevg.prop.oust.PlayerMove;
 import edu.upc.epsevg.prop.oust.PlayerType;
 import edu.upc.epsevg.prop.oust.SearchType;
+import edu.upc.epsevg.prop.oust.players.ramos47262693Q_lopez46497328E.BitboardStatus;
+import edu.upc.epsevg.prop.oust.players.ramos47262693Q_lopez46497328E.MoveGenerator;
+import edu.upc.epsevg.prop.oust.players.ramos47262693Q_lopez46497328E.PlayoutEngine;
 import java.awt.Point;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
 
 /**
  * Jugador aleatori
@@ -20,6 +22,7 @@ public class RandomPlayer implements IPlayer, IAuto {
 
     private String name;
     private boolean timeout = false;
+    private final PlayoutEngine random = new PlayoutEngine();
 
     public RandomPlayer(String name) {
         this.name = name;
@@ -43,17 +46,15 @@ public class RandomPlayer implements IPlayer, IAuto {
         
         List<Point> path = new ArrayList<>();
         PlayerType currentPlayer = s1.getCurrentPlayer();
-        GameStatus aux = new GameStatus(s1);
+        BitboardStatus aux = new BitboardStatus(s1);
         
         do {
             
-            List<Point> moves = aux.getMoves();
-            if(moves.size()==0) break;
+            int m = random.randomMove(aux);
+            if(m==MoveGenerator.ILLEGAL) break;
 
-            Random rand = new Random();
-            Point m = moves.get(rand.nextInt(moves.size()));
             aux.placeStone(m);
-            path.add(m);
+            path.add(aux.toPoint(m));
             
         } while(currentPlayer == aux.getCurrentPlayer());
             
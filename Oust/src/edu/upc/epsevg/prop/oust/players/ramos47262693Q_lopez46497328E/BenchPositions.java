@@ -0,0 +1,62 @@
+package edu.upc.epsevg.prop.oust.players.ramos47262693Q_lopez46497328E;
+
+import edu.upc.epsevg.prop.oust.GameStatus;
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Posiciones fijas para comparar el rendimiento de los jugadores: partidas
+ * aleatorias con semilla fija en el tablero de competición, cortadas en
+ * apertura, medio juego y final. Siempre son las mismas posiciones.
+ */
+final class BenchPositions {
+
+    static final int SIZE = 7;
+
+    // Jugadas aleatorias antes de cada posición
+    private static final int[] PLIES = {0, 6, 12, 20, 30, 40, 55, 70};
+    private static final int[] MID_PLIES = {20, 25, 30, 35, 40, 45};
+    private static final int[] END_PLIES = {55, 60, 65, 70, 75, 80};
+
+    private BenchPositions() {}
+
+    static List<GameStatus> standard() {
+        return positions(PLIES, 0x0057BE7CL);
+    }
+
+    /** Posiciones de medio juego, distintas de las de standard(). */
+    static List<GameStatus> midGame() {
+        return positions(MID_PLIES, 0x00A1D6A3L);
+    }
+
+    /** Posiciones de final, distintas de las de standard(). */
+    static List<GameStatus> endGame() {
+        return positions(END_PLIES, 0x00E2D6A3L);
+    }
+
+    private static List<GameStatus> positions(int[] plyCounts, long seed) {
+        List<GameStatus> list = new ArrayList<>(plyCounts.length);
+
+        for (int plies : plyCounts) {
+            GameStatus gs;
+            // Si la partida acaba antes de llegar, se prueba otra semilla
+            do {
+                gs = randomGame(plies, new SplittableRandom(seed++));
+            } while (gs == null);
+            list.add(gs);
+        }
+        return list;
+    }
+
+    private static GameStatus randomGame(int plies, SplittableRandom rnd) {
+        GameStatus gs = new GameStatus(SIZE);
+        for (int i = 0; i < plies; i++) {
+            List<Point> moves = gs.getMoves();
+            if (gs.isGameOver() || moves.isEmpty()) return null;
+            gs.placeStone(moves.get(rnd.nextInt(moves.size())));
+        }
+        return gs.isGameOver() ? null : gs;
+    }
+}
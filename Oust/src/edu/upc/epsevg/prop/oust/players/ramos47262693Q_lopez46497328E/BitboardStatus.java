@@ -0,0 +1,636 @@
+package edu.upc.epsevg.prop.oust.players.ramos47262693Q_lopez46497328E;
+
+import edu.upc.epsevg.prop.oust.GameStatus;
+import edu.upc.epsevg.prop.oust.PlayerType;
+import java.awt.Point;
+import java.util.List;
+
+/**
+ * Estado compacto de Oust para la búsqueda.
+ *
+ * Cada color es un bitset de varias palabras (ver {@link HexGeometry}); la
+ * colocación, la detección de capturas y la búsqueda de grupos se hacen con
+ * desplazamientos y máscaras. Copiar un estado son unas pocas asignaciones de
+ * {@code long} en lugar de la copia completa de {@link GameStatus}.
+ *
+ * El estado mantiene una clave Zobrist de 64 bits (piedras, turno y si el
+ * jugador continúa una cadena de captura) que se actualiza sólo con las
+ * casillas que cambian en cada jugada.
+ *
+ * Los grupos se siguen con un union-find por color (unión por tamaño, sin
+ * compresión de caminos) y un multiconjunto de tamaños de grupo, de modo que
+ * el número de grupos y el grupo más grande se consultan en O(1).
+ *
+ * Las reglas reproducen las de {@link GameStatus#placeStone(Point)}: una
+ * piedra sin contacto con las propias pasa el turno; una piedra de contacto
+ * sólo es legal si el grupo resultante es mayor que todos los grupos rivales
+ * adyacentes (y hay al menos uno), que quedan capturados, y el jugador repite.
+ */
+public class BitboardStatus {
+
+    static final int P1 = 0;
+    static final int P2 = 1;
+
+    final HexGeometry geo;
+
+    // Piedras de cada color
+    final long[] stones1;
+    final long[] stones2;
+
+    int current;
+    int count1;
+    int count2;
+    int winner = -1;
+    boolean lastMoveWasCapture;
+    long hash;
+
+    // Union-find de grupos, indexado por bit. Sólo es válido en casillas
+    // ocupadas: las piedras capturadas dejan sus entradas tal cual y se
+    // reinicializan cuando se vuelve a jugar en la casilla.
+    final int[] parent;
+    final int[] groupSize;
+
+    // Multiconjunto de tamaños: sizeCountX[s] = grupos de tamaño s
+    final int[] sizeCount1;
+    final int[] sizeCount2;
+    int groups1;
+    int groups2;
+    int biggest1;
+    int biggest2;
+
+    // =====================================================
+    // PILA DE DESHACER (makeMove / unmakeMove)
+    // =====================================================
+
+    /** Profundidad máxima de la pila de {@link #makeMove(int)}. */
+    public static final int MAX_PLY = 256;
+
+    // Registro escalar de cada nivel: undo[ply * U_STRIDE + campo]
+    private static final int U_CELL = 0;
+    private static final int U_CURRENT = 1;
+    private static final int U_COUNT1 = 2;
+    private static final int U_COUNT2 = 3;
+    private static final int U_WINNER = 4;
+    private static final int U_CAPTURE = 5;
+    private static final int U_GROUPS1 = 6;
+    private static final int U_GROUPS2 = 7;
+    private static final int U_BIGGEST1 = 8;
+    private static final int U_BIGGEST2 = 9;
+    private static final int U_PARENT = 10;
+    private static final int U_SIZE = 11;
+    private static final int U_UNIONS = 12;
+    private static final int U_TAKEN = 13;
+    private static final int U_STRIDE = 14;
+
+    // Se reservan en el primer makeMove: las copias que sólo usan
+    // placeStone no pagan la pila
+    private int[] undo;
+    private long[] undoHash;
+    private long[] undoCaptured;   // casillas capturadas, geo.words por nivel
+    private int[] undoUnions;      // raíces que se colgaron de otra, 6 por nivel
+    private int ply;
+    private boolean recording;
+
+    // Espacio de trabajo (no forma parte del estado)
+    private final long[] group;
+    private final long[] halo;
+    private final long[] enemy;
+    private final long[] tmp;
+
+    public BitboardStatus(GameStatus gs) {
+        this(HexGeometry.of(gs.getSize()));
+
+        for (int c : geo.cells) {
+            Point p = geo.toPoint(c);
+            PlayerType t = gs.getColor(p.x, p.y);
+            if (t == PlayerType.PLAYER1) {
+                HexGeometry.set(stones1, c);
+                count1++;
+                addToGroups(c, P1);
+            } else if (t == PlayerType.PLAYER2) {
+                HexGeometry.set(stones2, c);
+                count2++;
+                addToGroups(c, P2);
+            }
+        }
+        current = indexOf(gs.getCurrentPlayer());
+        if (gs.isGameOver() && gs.GetWinner() != null) winner = indexOf(gs.GetWinner());
+        hash = computeHash();
+    }
+
+    public BitboardStatus(BitboardStatus other) {
+        this(other.geo);
+        copyFrom(other);
+    }
+
+    private BitboardStatus(HexGeometry geo) {
+        this.geo = geo;
+        int w = geo.words;
+        stones1 = new long[w];
+        stones2 = new long[w];
+        group = new long[w];
+        halo = new long[w];
+        enemy = new long[w];
+        tmp = new long[w];
+
+        parent = new int[geo.bits];
+        groupSize = new int[geo.bits];
+        sizeCount1 = new int[geo.cellCount + 1];
+        sizeCount2 = new int[geo.cellCount + 1];
+    }
+
+    /** Sobrescribe este estado con {@code other} (mismo tamaño de tablero). */
+    public void copyFrom(BitboardStatus other) {
+        System.arraycopy(other.stones1, 0, stones1, 0, geo.words);
+        System.arraycopy(other.stones2, 0, stones2, 0, geo.words);
+        current = other.current;
+        count1 = other.count1;
+        count2 = other.count2;
+        winner = other.winner;
+        lastMoveWasCapture = other.lastMoveWasCapture;
+        hash = other.hash;
+
+        System.arraycopy(other.parent, 0, parent, 0, parent.length);
+        System.arraycopy(other.groupSize, 0, groupSize, 0, groupSize.length);
+        System.arraycopy(other.sizeCount1, 0, sizeCount1, 0, sizeCount1.length);
+        System.arraycopy(other.sizeCount2, 0, sizeCount2, 0, sizeCount2.length);
+        groups1 = other.groups1;
+        groups2 = other.groups2;
+        biggest1 = other.biggest1;
+        biggest2 = other.biggest2;
+        ply = 0;
+    }
+
+    // =====================================================
+    // CONSULTAS
+    // =====================================================
+
+    public int getSize() {
+        return geo.n;
+    }
+
+    public int getSquareSize() {
+        return geo.square;
+    }
+
+    /** Casillas válidas del tablero, en el mismo orden que getMoves(). */
+    public int[] cells() {
+        return geo.cells;
+    }
+
+    public int cellOf(Point p) {
+        return geo.cellOf(p.x, p.y);
+    }
+
+    public Point toPoint(int cell) {
+        return geo.toPoint(cell);
+    }
+
+    public PlayerType getCurrentPlayer() {
+        return typeOf(current);
+    }
+
+    public PlayerType getColor(int cell) {
+        if (HexGeometry.test(stones1, cell)) return PlayerType.PLAYER1;
+        if (HexGeometry.test(stones2, cell)) return PlayerType.PLAYER2;
+        return null;
+    }
+
+    public int getStones(PlayerType p) {
+        return p == PlayerType.PLAYER1 ? count1 : count2;
+    }
+
+    public boolean isGameOver() {
+        return winner >= 0;
+    }
+
+    public PlayerType getWinner() {
+        return winner < 0 ? null : typeOf(winner);
+    }
+
+    public boolean lastMoveWasCapture() {
+        return lastMoveWasCapture;
+    }
+
+    /** Clave Zobrist de la posición. */
+    public long getHash() {
+        return hash;
+    }
+
+    // =====================================================
+    // LEGALIDAD Y CAPTURAS
+    // =====================================================
+
+    public boolean isLegal(int cell) {
+        return captureSize(cell) >= 0;
+    }
+
+    /**
+     * Piedras que capturaría el jugador actual colocando en {@code cell}:
+     * 0 si es una jugada sin contacto, -1 si es ilegal.
+     */
+    public int captureSize(int cell) {
+        if (isGameOver()) return -1;
+        return captureSize(cell, current);
+    }
+
+    private int captureSize(int cell, int player) {
+        if (!geo.isValid(cell)) return -1;
+        if (HexGeometry.test(stones1, cell) || HexGeometry.test(stones2, cell)) return -1;
+
+        long[] own = player == P1 ? stones1 : stones2;
+        long[] opp = player == P1 ? stones2 : stones1;
+
+        if (!touches(cell, own)) return 0;
+
+        // Grupo propio resultante de colocar la piedra
+        HexGeometry.set(own, cell);
+        clearArray(group);
+        HexGeometry.set(group, cell);
+        int size = geo.flood(group, own, tmp);
+        HexGeometry.clear(own, cell);
+
+        // Grupos rivales adyacentes
+        geo.dilate(group, halo);
+        for (int i = 0; i < geo.words; i++) halo[i] &= opp[i];
+        if (geo.isEmpty(halo)) return -1;
+
+        int captured = 0;
+        while (true) {
+            int seed = geo.firstBit(halo);
+            if (seed == HexGeometry.NONE) break;
+
+            clearArray(enemy);
+            HexGeometry.set(enemy, seed);
+            int s = geo.flood(enemy, opp, tmp);
+            if (s >= size) return -1;
+
+            captured += s;
+            for (int i = 0; i < geo.words; i++) halo[i] &= ~enemy[i];
+        }
+        return captured;
+    }
+
+    private boolean touches(int cell, long[] own) {
+        int base = cell * 6;
+        for (int d = 0; d < 6; d++) {
+            int v = geo.neighbours[base + d];
+            if (v != HexGeometry.NONE && HexGeometry.test(own, v)) return true;
+        }
+        return false;
+    }
+
+    private boolean hasLegalMove(int player) {
+        long[] own = player == P1 ? stones1 : stones2;
+
+        // Cualquier casilla vacía sin contacto es legal
+        geo.dilate(own, halo);
+        for (int i = 0; i < geo.words; i++) {
+            long free = geo.valid[i] & ~(stones1[i] | stones2[i]);
+            if ((free & ~halo[i]) != 0) return true;
+        }
+        for (int c : geo.cells) {
+            if (captureSize(c, player) >= 0) return true;
+        }
+        return false;
+    }
+
+    // =====================================================
+    // JUGADAS
+    // =====================================================
+
+    public void placeStone(Point p) {
+        placeStone(geo.cellOf(p.x, p.y));
+    }
+
+    /**
+     * El jugador actual coloca una piedra en {@code cell}. Lanza una excepción
+     * si la jugada no es legal, igual que GameStatus.
+     *
+     * @return número de piedras capturadas
+     */
+    public int placeStone(int cell) {
+        int captured = captureSize(cell);
+        if (captured < 0) {
+            throw new RuntimeException("Jugada ilegal en " + geo.toPoint(cell));
+        }
+        return place(cell, captured);
+    }
+
+    /**
+     * Como {@link #placeStone(int)} sin volver a comprobar la jugada:
+     * {@code captured} tiene que ser lo que acaba de devolver
+     * {@code captureSize(cell)}, sin otra llamada en medio, porque la
+     * captura reutiliza el grupo que dejó calculado.
+     */
+    int placeChecked(int cell, int captured) {
+        return place(cell, captured);
+    }
+
+    private int place(int cell, int captured) {
+        long[] own = current == P1 ? stones1 : stones2;
+        long[] opp = current == P1 ? stones2 : stones1;
+
+        long[] ownKeys = current == P1 ? geo.zobrist1 : geo.zobrist2;
+        long[] oppKeys = current == P1 ? geo.zobrist2 : geo.zobrist1;
+
+        if (recording) saveUndo(cell);
+
+        HexGeometry.set(own, cell);
+        if (current == P1) count1++; else count2++;
+        hash ^= ownKeys[cell];
+        addToGroups(cell, current);
+
+        if (captured > 0) {
+            // group/halo siguen siendo válidos tras captureSize: volvemos a
+            // calcular la unión de los grupos rivales adyacentes de una vez
+            geo.dilate(group, halo);
+            for (int i = 0; i < geo.words; i++) halo[i] &= opp[i];
+            geo.flood(halo, opp, tmp);
+            if (recording) {
+                undo[ply * U_STRIDE + U_TAKEN] = captured;
+                System.arraycopy(halo, 0, undoCaptured, ply * geo.words, geo.words);
+            }
+            for (int i = 0; i < geo.words; i++) {
+                opp[i] &= ~halo[i];
+                for (long w = halo[i]; w != 0; w &= w - 1) {
+                    int c = (i << 6) + Long.numberOfTrailingZeros(w);
+                    hash ^= oppKeys[c];
+                    if (parent[c] == c) removeGroup(c, 1 - current);
+                }
+            }
+            if (current == P1) count2 -= captured; else count1 -= captured;
+        }
+
+        if (lastMoveWasCapture != captured > 0) hash ^= geo.zobristChain;
+        lastMoveWasCapture = captured > 0;
+
+        if ((count1 == 0) != (count2 == 0) && count1 + count2 > 1) {
+            winner = current;
+        }
+
+        if (captured == 0) {
+            current = 1 - current;
+            if (hasLegalMove(current)) {
+                hash ^= geo.zobristSide;
+            } else {
+                current = 1 - current;
+            }
+        }
+        if (recording) ply++;
+        return captured;
+    }
+
+    /**
+     * Como {@link #placeStone(int)}, pero guarda en la pila lo necesario para
+     * deshacer la jugada con {@link #unmakeMove()}: casilla puesta, casillas
+     * capturadas, clave anterior y el cambio en piedras, grupos y union-find.
+     * Tras la primera llamada no reserva memoria.
+     *
+     * @return número de piedras capturadas
+     */
+    public int makeMove(int cell) {
+        if (undo == null) {
+            undo = new int[MAX_PLY * U_STRIDE];
+            undoHash = new long[MAX_PLY];
+            undoCaptured = new long[MAX_PLY * geo.words];
+            undoUnions = new int[MAX_PLY * 6];
+        }
+        if (ply == MAX_PLY) {
+            throw new IllegalStateException("Pila de jugadas llena (" + MAX_PLY + ")");
+        }
+        recording = true;
+        try {
+            return placeStone(cell);
+        } finally {
+            recording = false;
+        }
+    }
+
+    public int makeMove(Point p) {
+        return makeMove(geo.cellOf(p.x, p.y));
+    }
+
+    /** Deshace la última jugada hecha con {@link #makeMove(int)}. */
+    public void unmakeMove() {
+        if (ply == 0) throw new IllegalStateException("No hay jugadas que deshacer");
+        ply--;
+        int base = ply * U_STRIDE;
+        int cell = undo[base + U_CELL];
+        int player = undo[base + U_CURRENT];
+
+        long[] own = player == P1 ? stones1 : stones2;
+        long[] opp = player == P1 ? stones2 : stones1;
+        int[] ownSizes = player == P1 ? sizeCount1 : sizeCount2;
+        int[] oppSizes = player == P1 ? sizeCount2 : sizeCount1;
+
+        // Grupos capturados: su union-find sigue intacto, basta con volver
+        // a poner las piedras y sus tamaños en el multiconjunto
+        if (undo[base + U_TAKEN] > 0) {
+            int off = ply * geo.words;
+            for (int i = 0; i < geo.words; i++) {
+                long w = undoCaptured[off + i];
+                if (w == 0) continue;
+                opp[i] |= w;
+                for (; w != 0; w &= w - 1) {
+                    int c = (i << 6) + Long.numberOfTrailingZeros(w);
+                    if (parent[c] == c) oppSizes[groupSize[c]]++;
+                }
+            }
+        }
+
+        // Uniones en orden inverso
+        int unions = undo[base + U_UNIONS];
+        for (int k = unions - 1; k >= 0; k--) {
+            int r = undoUnions[ply * 6 + k];
+            int root = parent[r];
+            ownSizes[groupSize[root]]--;
+            groupSize[root] -= groupSize[r];
+            ownSizes[groupSize[root]]++;
+            ownSizes[groupSize[r]]++;
+            parent[r] = r;
+        }
+        ownSizes[1]--;
+        parent[cell] = undo[base + U_PARENT];
+        groupSize[cell] = undo[base + U_SIZE];
+        HexGeometry.clear(own, cell);
+
+        current = player;
+        count1 = undo[base + U_COUNT1];
+        count2 = undo[base + U_COUNT2];
+        winner = undo[base + U_WINNER];
+        lastMoveWasCapture = undo[base + U_CAPTURE] != 0;
+        groups1 = undo[base + U_GROUPS1];
+        groups2 = undo[base + U_GROUPS2];
+        biggest1 = undo[base + U_BIGGEST1];
+        biggest2 = undo[base + U_BIGGEST2];
+        hash = undoHash[ply];
+    }
+
+    /** Número de jugadas en la pila de deshacer. */
+    public int ply() {
+        return ply;
+    }
+
+    /** Casilla de la última jugada hecha con makeMove, o -1 si la pila está vacía. */
+    public int lastMove() {
+        return ply == 0 ? -1 : undo[(ply - 1) * U_STRIDE + U_CELL];
+    }
+
+    private void saveUndo(int cell) {
+        int base = ply * U_STRIDE;
+        undo[base + U_CELL] = cell;
+        undo[base + U_CURRENT] = current;
+        undo[base + U_COUNT1] = count1;
+        undo[base + U_COUNT2] = count2;
+        undo[base + U_WINNER] = winner;
+        undo[base + U_CAPTURE] = lastMoveWasCapture ? 1 : 0;
+        undo[base + U_GROUPS1] = groups1;
+        undo[base + U_GROUPS2] = groups2;
+        undo[base + U_BIGGEST1] = biggest1;
+        undo[base + U_BIGGEST2] = biggest2;
+        undo[base + U_PARENT] = parent[cell];
+        undo[base + U_SIZE] = groupSize[cell];
+        undo[base + U_UNIONS] = 0;
+        undo[base + U_TAKEN] = 0;
+        undoHash[ply] = hash;
+    }
+
+    // =====================================================
+    // GRUPOS (para la heurística)
+    // =====================================================
+
+    public int countGroups(PlayerType p) {
+        return p == PlayerType.PLAYER1 ? groups1 : groups2;
+    }
+
+    public int biggestGroup(PlayerType p) {
+        return p == PlayerType.PLAYER1 ? biggest1 : biggest2;
+    }
+
+    // =====================================================
+    // UNION-FIND DE GRUPOS
+    // =====================================================
+
+    int find(int cell) {
+        while (parent[cell] != cell) cell = parent[cell];
+        return cell;
+    }
+
+    /** Da de alta una piedra recién puesta y la une a sus vecinas del mismo color. */
+    private void addToGroups(int cell, int player) {
+        long[] own = player == P1 ? stones1 : stones2;
+        int[] sizeCount = player == P1 ? sizeCount1 : sizeCount2;
+
+        parent[cell] = cell;
+        groupSize[cell] = 1;
+        sizeCount[1]++;
+        int groups = 1;
+        int root = cell;
+
+        int base = cell * 6;
+        for (int d = 0; d < 6; d++) {
+            int v = geo.neighbours[base + d];
+            if (v == HexGeometry.NONE || !HexGeometry.test(own, v)) continue;
+
+            int r = find(v);
+            if (r == root) continue;
+
+            // Unión por tamaño: el grupo pequeño cuelga del grande
+            sizeCount[groupSize[r]]--;
+            sizeCount[groupSize[root]]--;
+            if (groupSize[r] > groupSize[root]) {
+                int t = r; r = root; root = t;
+            }
+            parent[r] = root;
+            groupSize[root] += groupSize[r];
+            if (recording) undoUnions[ply * 6 + undo[ply * U_STRIDE + U_UNIONS]++] = r;
+            sizeCount[groupSize[root]]++;
+            groups--;
+        }
+
+        if (player == P1) {
+            groups1 += groups;
+            biggest1 = Math.max(biggest1, groupSize[root]);
+        } else {
+            groups2 += groups;
+            biggest2 = Math.max(biggest2, groupSize[root]);
+        }
+    }
+
+    /** Quita del multiconjunto el grupo capturado con raíz {@code root}. */
+    private void removeGroup(int root, int player) {
+        int[] sizeCount = player == P1 ? sizeCount1 : sizeCount2;
+        sizeCount[groupSize[root]]--;
+
+        if (player == P1) {
+            groups1--;
+            while (biggest1 > 0 && sizeCount[biggest1] == 0) biggest1--;
+        } else {
+            groups2--;
+            while (biggest2 > 0 && sizeCount[biggest2] == 0) biggest2--;
+        }
+    }
+
+    // =====================================================
+    // CONVERSIÓN A GameStatus
+    // =====================================================
+
+    /**
+     * Reconstruye el GameStatus equivalente a partir de {@code origin} y las
+     * jugadas hechas desde él. El constructor GameStatus(byte[][], PlayerType)
+     * de la librería no sirve: usa initialBoard.length como lado del hexágono
+     * pero recorre 2n-1 filas.
+     *
+     * @throws IllegalStateException si el resultado no coincide con este estado
+     */
+    public GameStatus toGameStatus(GameStatus origin, List<Point> line) {
+        GameStatus gs = new GameStatus(origin);
+        for (Point p : line) gs.placeStone(p);
+
+        if (!matches(gs)) {
+            throw new IllegalStateException("El bitboard no coincide con GameStatus:\n" + gs);
+        }
+        return gs;
+    }
+
+    /** Compara piedras, turno y final de partida con un GameStatus. */
+    public boolean matches(GameStatus gs) {
+        if (gs.getSize() != geo.n) return false;
+        if (gs.getCurrentPlayer() != getCurrentPlayer()) return false;
+        if (gs.isGameOver() != isGameOver()) return false;
+        for (int c : geo.cells) {
+            Point p = geo.toPoint(c);
+            if (gs.getColor(p.x, p.y) != getColor(c)) return false;
+        }
+        return true;
+    }
+
+    // =====================================================
+    // AUXILIARES
+    // =====================================================
+
+    /** Clave Zobrist calculada desde cero (sólo al construir). */
+    private long computeHash() {
+        long h = 0L;
+        for (int c : geo.cells) {
+            if (HexGeometry.test(stones1, c)) h ^= geo.zobrist1[c];
+            else if (HexGeometry.test(stones2, c)) h ^= geo.zobrist2[c];
+        }
+        if (current == P2) h ^= geo.zobristSide;
+        if (lastMoveWasCapture) h ^= geo.zobristChain;
+        return h;
+    }
+
+    static int indexOf(PlayerType p) {
+        return p == PlayerType.PLAYER1 ? P1 : P2;
+    }
+
+    static PlayerType typeOf(int player) {
+        return player == P1 ? PlayerType.PLAYER1 : PlayerType.PLAYER2;
+    }
+
+    private static void clearArray(long[] a) {
+        for (int i = 0; i < a.length; i++) a[i] = 0L;
+    }
+}
@@ -0,0 +1,78 @@
+package edu.upc.epsevg.prop.oust.players.ramos47262693Q_lopez46497328E;
+
+import edu.upc.epsevg.prop.oust.GameStatus;
+import edu.upc.epsevg.prop.oust.IPlayer;
+import edu.upc.epsevg.prop.oust.PlayerMove;
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Prueba de regresión de la puntuación de fin de partida: tras cualquier
+ * primera piedra de PLAYER1, la respuesta de los jugadores no puede dejar
+ * que PLAYER1 capture nuestra única piedra y gane en la jugada siguiente.
+ * Con una heurística que valga más que la victoria, la búsqueda acababa
+ * prefiriendo esas posiciones.
+ *
+ * Sale con código 1 si algún jugador falla.
+ *
+ * Uso: CaptureOutCheck [tamaño del tablero = 7] [ms del IDS = 50]
+ */
+public class CaptureOutCheck {
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 7;
+        long ms = args.length > 1 ? Long.parseLong(args[1]) : 50;
+
+        Map<String, Supplier<IPlayer>> players = new LinkedHashMap<>();
+        players.put("MinimaxPlayer(2)", () -> new MinimaxPlayer(2));
+        players.put("MinimaxPlayer(3, 2 hilos)", () -> new MinimaxPlayer(3, 2));
+        players.put("IDSMinimaxPlayer(" + ms + " ms, TT 16 MB)", () -> new IDSMinimaxPlayer(ms, 16, false));
+        players.put("IDSMinimaxPlayer(" + ms + " ms)", () -> new IDSMinimaxPlayer(ms));
+        // Sin tiempo ni para la primera iteración
+        players.put("IDSMinimaxPlayer(1 ms)", () -> new IDSMinimaxPlayer(1));
+
+        List<Point> openings = new GameStatus(size).getMoves();
+        int failures = 0;
+        for (Map.Entry<String, Supplier<IPlayer>> e : players.entrySet()) {
+            List<Point> lost = new ArrayList<>();
+            for (Point opening : openings) {
+                // Un jugador nuevo en cada partida, como en un torneo
+                IPlayer player = e.getValue().get();
+                GameStatus gs = new GameStatus(size);
+                gs.placeStone(opening);
+
+                PlayerMove pm = player.move(new GameStatus(gs));
+                for (Point p : pm.getPoints()) gs.placeStone(p);
+                if (capturesOut(gs)) lost.add(opening);
+            }
+            System.out.println(e.getKey() + ": " + (openings.size() - lost.size()) + "/"
+                    + openings.size() + " respuestas correctas" + (lost.isEmpty() ? "" : ", pierde tras " + lost));
+            failures += lost.size();
+        }
+        if (failures > 0) System.exit(1);
+    }
+
+    /** ¿Puede quien tiene el turno ganar la partida en su turno? */
+    private static boolean capturesOut(GameStatus gs) {
+        if (gs.isGameOver()) return gs.GetWinner() == gs.getCurrentPlayer();
+        BitboardStatus s = new BitboardStatus(gs);
+        return winsThisTurn(s, new MoveGenerator());
+    }
+
+    private static boolean winsThisTurn(BitboardStatus s, MoveGenerator gen) {
+        int n = gen.generateCaptures(s);
+        int[] captures = new int[n];
+        for (int i = 0; i < n; i++) captures[i] = gen.move(i);
+
+        for (int m : captures) {
+            BitboardStatus next = new BitboardStatus(s);
+            next.placeStone(m);
+            if (next.isGameOver() || winsThisTurn(next, gen)) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,199 @@
+package edu.upc.epsevg.prop.oust.players.ramos47262693Q_lopez46497328E;
+
+import edu.upc.epsevg.prop.oust.Dir;
+import java.awt.Point;
+import java.util.SplittableRandom;
+
+/**
+ * Geometría del hexágono de Oust proyectada sobre bitsets de varias palabras.
+ *
+ * La casilla (x, y) del cuadrado de lado 2n-1 se guarda en el bit x*W + y, con
+ * W = 2n (una columna "guarda" que nunca es válida). Así los seis vecinos son
+ * desplazamientos fijos (±1, ±W, ±(W+1)) y ningún desplazamiento puede saltar
+ * de fila a una casilla válida.
+ */
+final class HexGeometry {
+
+    private static final HexGeometry[] CACHE = new HexGeometry[16];
+
+    final int n;
+    final int square;
+    final int width;
+    final int bits;
+    final int words;
+
+    final long[] valid;
+    final int cellCount;
+
+    // Vecinos de cada bit, en el orden de Dir.values() (NONE si cae fuera)
+    final int[] neighbours;
+    static final int NONE = -1;
+
+    // Casillas válidas en orden (x, y) creciente, igual que getMoves()
+    final int[] cells;
+
+    // Claves Zobrist: una por bit y color, más el turno y la cadena de captura
+    final long[] zobrist1;
+    final long[] zobrist2;
+    final long zobristSide;
+    final long zobristChain;
+
+    private HexGeometry(int n) {
+        this.n = n;
+        this.square = 2 * n - 1;
+        this.width = square + 1;
+        this.bits = square * width;
+        this.words = (bits + 63) >>> 6;
+
+        valid = new long[words];
+        int count = 0;
+        for (int x = 0; x < square; x++) {
+            for (int y = 0; y < square; y++) {
+                if (inHexagon(x, y)) {
+                    int c = cellOf(x, y);
+                    valid[c >>> 6] |= 1L << c;
+                    count++;
+                }
+            }
+        }
+        cellCount = count;
+
+        cells = new int[count];
+        int k = 0;
+        for (int x = 0; x < square; x++) {
+            for (int y = 0; y < square; y++) {
+                if (inHexagon(x, y)) cells[k++] = cellOf(x, y);
+            }
+        }
+
+        Dir[] dirs = Dir.values();
+        neighbours = new int[bits * 6];
+        for (int c = 0; c < bits; c++) {
+            Point p = toPoint(c);
+            for (int d = 0; d < 6; d++) {
+                Point q = dirs[d].add(p);
+                neighbours[c * 6 + d] = inHexagon(q.x, q.y) ? cellOf(q.x, q.y) : NONE;
+            }
+        }
+
+        // Semilla fija: las claves son las mismas en todas las ejecuciones
+        SplittableRandom rnd = new SplittableRandom(0x5EED0057L + n);
+        zobrist1 = new long[bits];
+        zobrist2 = new long[bits];
+        for (int c = 0; c < bits; c++) {
+            zobrist1[c] = rnd.nextLong();
+            zobrist2[c] = rnd.nextLong();
+        }
+        zobristSide = rnd.nextLong();
+        zobristChain = rnd.nextLong();
+    }
+
+    static synchronized HexGeometry of(int n) {
+        if (n < 1 || n >= CACHE.length) {
+            throw new IllegalArgumentException("Tamaño de tablero no soportado: " + n);
+        }
+        if (CACHE[n] == null) CACHE[n] = new HexGeometry(n);
+        return CACHE[n];
+    }
+
+    // =====================================================
+    // COORDENADAS
+    // =====================================================
+
+    boolean inHexagon(int x, int y) {
+        return x >= 0 && y >= 0 && x < square && y < square
+                && x - y < n && y - x < n;
+    }
+
+    int cellOf(int x, int y) {
+        return x * width + y;
+    }
+
+    Point toPoint(int cell) {
+        return new Point(cell / width, cell % width);
+    }
+
+    boolean isValid(int cell) {
+        return cell >= 0 && cell < bits && (valid[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    // =====================================================
+    // OPERACIONES DE BITSET
+    // =====================================================
+
+    /** dst = (src + sus seis vecinos) & casillas válidas. dst != src. */
+    void dilate(long[] src, long[] dst) {
+        final int w = width;
+        final int last = words - 1;
+        for (int i = 0; i <= last; i++) {
+            long s = src[i];
+            long lo = i > 0 ? src[i - 1] : 0L;
+            long hi = i < last ? src[i + 1] : 0L;
+
+            long v = s
+                    | (s << 1) | (lo >>> 63)
+                    | (s >>> 1) | (hi << 63)
+                    | (s << w) | (lo >>> (64 - w))
+                    | (s >>> w) | (hi << (64 - w))
+                    | (s << (w + 1)) | (lo >>> (63 - w))
+                    | (s >>> (w + 1)) | (hi << (63 - w));
+
+            dst[i] = v & valid[i];
+        }
+    }
+
+    /**
+     * Expande {@code group} hasta el grupo conexo que lo contiene dentro de
+     * {@code mask}. El resultado queda en {@code group}; {@code tmp} es espacio
+     * de trabajo.
+     *
+     * @return número de casillas del grupo
+     */
+    int flood(long[] group, long[] mask, long[] tmp) {
+        while (true) {
+            dilate(group, tmp);
+            boolean changed = false;
+            for (int i = 0; i < words; i++) {
+                long v = tmp[i] & mask[i];
+                if (v != group[i]) {
+                    group[i] = v;
+                    changed = true;
+                }
+            }
+            if (!changed) return popcount(group);
+        }
+    }
+
+    int popcount(long[] a) {
+        int c = 0;
+        for (int i = 0; i < words; i++) c += Long.bitCount(a[i]);
+        return c;
+    }
+
+    boolean isEmpty(long[] a) {
+        for (int i = 0; i < words; i++) {
+            if (a[i] != 0) return false;
+        }
+        return true;
+    }
+
+    /** Índice del primer bit activo, o NONE si el bitset está vacío. */
+    int firstBit(long[] a) {
+        for (int i = 0; i < words; i++) {
+            if (a[i] != 0) return (i << 6) + Long.numberOfTrailingZeros(a[i]);
+        }
+        return NONE;
+    }
+
+    static boolean test(long[] a, int cell) {
+        return (a[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    static void set(long[] a, int cell) {
+        a[cell >>> 6] |= 1L << cell;
+    }
+
+    static void clear(long[] a, int cell) {
+        a[cell >>> 6] &= ~(1L << cell);
+    }
+}
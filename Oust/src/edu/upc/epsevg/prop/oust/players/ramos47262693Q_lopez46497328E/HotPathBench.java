@@ -0,0 +1,368 @@
+package edu.upc.epsevg.prop.oust.players.ramos47262693Q_lopez46497328E;
+
+import edu.upc.epsevg.prop.oust.GameStatus;
+import edu.upc.epsevg.prop.oust.GameStatusTunned;
+import edu.upc.epsevg.prop.oust.PlayerType;
+import java.awt.Point;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Microbenchmarks de los caminos críticos: iteraciones de calentamiento y
+ * de medida de duración fija, tiempo medio por operación con el error del
+ * intervalo de confianza del 99,9%, y el resultado de cada operación
+ * acumulado en un sumidero para que el JIT no elimine el trabajo. Cada
+ * operación toma una posición del corpus (medio juego o final, ver
+ * {@link BenchPositions}) y las recorre en ciclo.
+ *
+ * Cada benchmark se mide en su propia JVM (y en {@code forks} JVM
+ * distintas): así la llamada a la operación sólo ve una clase y el JIT
+ * compila cada una como lo haría sola, sin el perfil de las anteriores.
+ * No es JMH: no controla el código muerto ni el plegado de constantes más
+ * allá del sumidero, y los ns de las operaciones más cortas incluyen el
+ * bucle de medida.
+ *
+ * El resultado se escribe en JSON, para comparar versiones del motor.
+ *
+ * Uso: HotPathBench [fichero JSON = bench.json] [ms por iteración = 500]
+ *                   [profundidad del minimax = 2] [JVM por benchmark = 2]
+ */
+public class HotPathBench {
+
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASUREMENT_ITERATIONS = 5;
+
+    // Un lote de operaciones entre lecturas del reloj dura al menos esto
+    private static final long MIN_BATCH_NANOS = 10_000;
+
+    // t de Student bilateral al 99,9% por grados de libertad (1..20)
+    private static final double[] T_999 = {
+        636.619, 31.599, 12.924, 8.610, 6.869, 5.959, 5.408, 5.041, 4.781, 4.587,
+        4.437, 4.318, 4.221, 4.140, 4.073, 4.015, 3.965, 3.922, 3.883, 3.850
+    };
+
+    // Resultado de las operaciones, para que no se puedan eliminar
+    private static long sink;
+
+    // Argumento con el que el proceso principal lanza cada medida
+    private static final String FORK = "--fork";
+    private static final String RAW = "RAW";
+
+    /** Una operación sobre la i-ésima posición del corpus (en ciclo). */
+    private interface Op {
+        long run(int i);
+    }
+
+    private static final class Result {
+        final String benchmark;
+        final String corpus;
+        final double[][] raw;     // por JVM
+        final int samples;
+        final double score;
+        final double error;
+
+        Result(String benchmark, String corpus, double[][] raw) {
+            this.benchmark = benchmark;
+            this.corpus = corpus;
+            this.raw = raw;
+
+            int n = 0;
+            double sum = 0;
+            for (double[] fork : raw) {
+                for (double r : fork) {
+                    sum += r;
+                    n++;
+                }
+            }
+            samples = n;
+            score = sum / n;
+
+            double var = 0;
+            for (double[] fork : raw) {
+                for (double r : fork) var += (r - score) * (r - score);
+            }
+            var /= n - 1;
+            int df = n - 1;
+            double t = df <= T_999.length ? T_999[df - 1] : 3.291;
+            error = t * Math.sqrt(var / n);
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length > 0 && args[0].equals(FORK)) {
+            runFork(args[1], args[2], Long.parseLong(args[3]), Integer.parseInt(args[4]));
+            return;
+        }
+
+        Path json = Paths.get(args.length > 0 ? args[0] : "bench.json");
+        long ms = args.length > 1 ? Long.parseLong(args[1]) : 500;
+        int depth = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+        int forks = args.length > 3 ? Integer.parseInt(args[3]) : 2;
+
+        List<Result> results = new ArrayList<>();
+        for (Map.Entry<String, List<GameStatus>> c : corpora().entrySet()) {
+            for (String name : benchmarks(c.getValue(), depth).keySet()) {
+                double[][] raw = new double[forks][];
+                for (int f = 0; f < forks; f++) raw[f] = fork(name, c.getKey(), ms, depth);
+                Result r = new Result(name, c.getKey(), raw);
+                results.add(r);
+                System.out.printf(Locale.ROOT, "%-34s %-4s %2d %14.3f ± %12.3f ns/op%n",
+                        r.benchmark, r.corpus, r.samples, r.score, r.error);
+            }
+        }
+
+        writeJson(json, results, ms, depth, forks);
+        System.out.println("JSON: " + json.toAbsolutePath());
+    }
+
+    private static Map<String, List<GameStatus>> corpora() {
+        Map<String, List<GameStatus>> corpora = new LinkedHashMap<>();
+        corpora.put("mid", BenchPositions.midGame());
+        corpora.put("end", BenchPositions.endGame());
+        return corpora;
+    }
+
+    // =====================================================
+    // JVM POR BENCHMARK
+    // =====================================================
+
+    /**
+     * Lanza una JVM con la misma java, classpath y opciones que ésta para
+     * medir sólo {@code benchmark} sobre {@code corpus}, y devuelve sus
+     * tiempos por iteración.
+     */
+    private static double[] fork(String benchmark, String corpus, long ms, int depth)
+            throws IOException, InterruptedException {
+        List<String> cmd = new ArrayList<>();
+        cmd.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        cmd.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        cmd.add("-cp");
+        cmd.add(System.getProperty("java.class.path"));
+        cmd.add(HotPathBench.class.getName());
+        cmd.add(FORK);
+        cmd.add(benchmark);
+        cmd.add(corpus);
+        cmd.add(Long.toString(ms));
+        cmd.add(Integer.toString(depth));
+
+        Process p = new ProcessBuilder(cmd).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        double[] raw = null;
+        try (BufferedReader in = new BufferedReader(
+                new InputStreamReader(p.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (!line.startsWith(RAW + " ")) continue;
+                String[] parts = line.substring(RAW.length() + 1).trim().split(" ");
+                raw = new double[parts.length];
+                for (int k = 0; k < parts.length; k++) raw[k] = Double.parseDouble(parts[k]);
+            }
+        }
+        int exit = p.waitFor();
+        if (exit != 0 || raw == null) {
+            throw new IllegalStateException("La medida de " + benchmark + " (" + corpus
+                    + ") ha fallado (código " + exit + ")");
+        }
+        return raw;
+    }
+
+    /** Proceso hijo: mide una operación y escribe sus tiempos en una línea. */
+    private static void runFork(String benchmark, String corpus, long ms, int depth) {
+        List<GameStatus> positions = corpora().get(corpus);
+        Op op = benchmarks(positions, depth).get(benchmark);
+        if (op == null) throw new IllegalArgumentException("Benchmark desconocido: " + benchmark);
+
+        double[] raw = measure(op, positions.size(), ms * 1_000_000L);
+        StringBuilder sb = new StringBuilder(RAW);
+        for (double r : raw) sb.append(' ').append(number(r));
+        System.out.println(sb);
+        System.err.println(benchmark + " " + corpus + ": sumidero " + sink);
+    }
+
+    // =====================================================
+    // OPERACIONES
+    // =====================================================
+
+    private static Map<String, Op> benchmarks(List<GameStatus> corpus, int depth) {
+        int n = corpus.size();
+        GameStatus[] gs = corpus.toArray(new GameStatus[0]);
+        BitboardStatus[] bb = new BitboardStatus[n];
+        int[][] cells = new int[n][];
+        Point[][] points = new Point[n][];
+
+        // Jugadas legales de cada posición, para ir probando todas
+        MoveGenerator gen = new MoveGenerator();
+        for (int p = 0; p < n; p++) {
+            bb[p] = new BitboardStatus(gs[p]);
+            int count = gen.generate(bb[p]);
+            cells[p] = new int[count];
+            points[p] = new Point[count];
+            for (int k = 0; k < count; k++) {
+                cells[p][k] = gen.move(k);
+                points[p][k] = bb[p].toPoint(cells[p][k]);
+            }
+        }
+
+        MinimaxPlayer minimax = new MinimaxPlayer(depth);
+
+        Map<String, Op> ops = new LinkedHashMap<>();
+        ops.put("GameStatus.copy", i -> new GameStatus(gs[i % n]).diff());
+        ops.put("GameStatus.placeStone", i -> {
+            int p = i % n;
+            GameStatus copy = new GameStatus(gs[p]);
+            copy.placeStone(points[p][(i / n) % points[p].length]);
+            return copy.diff();
+        });
+        ops.put("GameStatus.getMoves", i -> gs[i % n].getMoves().size());
+        ops.put("GameStatusTunned.new", i -> new GameStatusTunned(gs[i % n]).getInfo().biggestGroupP1);
+        ops.put("BitboardStatus.new", i -> new BitboardStatus(gs[i % n]).getHash());
+        ops.put("BitboardStatus.makeUnmake", i -> {
+            int p = i % n;
+            bb[p].makeMove(cells[p][(i / n) % cells[p].length]);
+            bb[p].unmakeMove();
+            return bb[p].getHash();
+        });
+        ops.put("MoveGenerator.generate", i -> gen.generate(bb[i % n]));
+        // Hoja de la quiescencia tal como la evalúa la búsqueda: capturas
+        // ordenadas, jugadas sin contacto y heurística con movilidad
+        MovePicker picker = new MovePicker();
+        ops.put("MinimaxPlayer.quiesceLeaf", i -> {
+            BitboardStatus s = bb[i % n];
+            picker.initCaptures(s, gen);
+            int quiet = gen.quietCount(s);
+            return MinimaxPlayer.evaluate(s, s.getCurrentPlayer(), quiet,
+                    picker.captureCount(), picker.bestCapture());
+        });
+        // La clave que consulta la TT tras cada jugada, actualizada al vuelo
+        ops.put("BitboardStatus.zobristKey", i -> {
+            int p = i % n;
+            bb[p].makeMove(cells[p][(i / n) % cells[p].length]);
+            long key = bb[p].getHash();
+            bb[p].unmakeMove();
+            return key;
+        });
+        ops.put("BitboardStatus.countGroups", i -> bb[i % n].countGroups(PlayerType.PLAYER1)
+                + bb[i % n].countGroups(PlayerType.PLAYER2));
+        ops.put("MinimaxPlayer.depth" + depth,
+                i -> minimax.move(new GameStatus(gs[i % n])).getNumerOfNodesExplored());
+        return ops;
+    }
+
+    // =====================================================
+    // MEDIDA
+    // =====================================================
+
+    /**
+     * Tiempo medio por operación (ns) de cada iteración de medida. Un lote
+     * es siempre un número entero de pasadas por las {@code positions}
+     * posiciones, para que todas pesen lo mismo aunque cuesten muy distinto.
+     * Durante el calentamiento se dobla el lote hasta que dura
+     * MIN_BATCH_NANOS, para que leer el reloj no pese en las operaciones de
+     * pocos ns.
+     */
+    private static double[] measure(Op op, int positions, long nanos) {
+        int i = 0;
+        int batch = positions;
+        for (int it = 0; it < WARMUP_ITERATIONS; it++) {
+            long end = System.nanoTime() + nanos;
+            long now;
+            do {
+                long t0 = System.nanoTime();
+                for (int k = 0; k < batch; k++) sink += op.run(i++);
+                now = System.nanoTime();
+                if (now - t0 < MIN_BATCH_NANOS) batch *= 2;
+            } while (now < end);
+        }
+
+        double[] raw = new double[MEASUREMENT_ITERATIONS];
+        for (int it = 0; it < MEASUREMENT_ITERATIONS; it++) {
+            long ops = 0;
+            long start = System.nanoTime();
+            long end = start + nanos;
+            long now;
+            do {
+                for (int k = 0; k < batch; k++) sink += op.run(i++);
+                ops += batch;
+            } while ((now = System.nanoTime()) < end);
+            raw[it] = (double) (now - start) / ops;
+        }
+        return raw;
+    }
+
+    // =====================================================
+    // JSON
+    // =====================================================
+
+    private static void writeJson(Path file, List<Result> results, long ms, int depth, int forks)
+            throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            out.println("{");
+            out.println("    \"jdkVersion\" : " + quote(System.getProperty("java.version")) + ",");
+            out.println("    \"vmName\" : " + quote(System.getProperty("java.vm.name")) + ",");
+            out.println("    \"vmVersion\" : " + quote(System.getProperty("java.vm.version")) + ",");
+            out.println("    \"boardSize\" : " + BenchPositions.SIZE + ",");
+            out.println("    \"depth\" : " + depth + ",");
+            out.println("    \"forks\" : " + forks + ",");
+            out.println("    \"warmupIterations\" : " + WARMUP_ITERATIONS + ",");
+            out.println("    \"measurementIterations\" : " + MEASUREMENT_ITERATIONS + ",");
+            out.println("    \"iterationTime\" : \"" + ms + " ms\",");
+            out.println("    \"confidence\" : 0.999,");
+            out.println("    \"results\" : [");
+            for (int r = 0; r < results.size(); r++) {
+                Result res = results.get(r);
+                out.println("        {");
+                out.println("            \"benchmark\" : " + quote(res.benchmark) + ",");
+                out.println("            \"corpus\" : " + quote(res.corpus) + ",");
+                out.println("            \"score\" : " + number(res.score) + ",");
+                out.println("            \"error\" : " + number(res.error) + ",");
+                out.println("            \"unit\" : \"ns/op\",");
+                StringBuilder raw = new StringBuilder();
+                for (int f = 0; f < res.raw.length; f++) {
+                    if (f > 0) raw.append(", ");
+                    raw.append("[ ");
+                    for (int k = 0; k < res.raw[f].length; k++) {
+                        if (k > 0) raw.append(", ");
+                        raw.append(number(res.raw[f][k]));
+                    }
+                    raw.append(" ]");
+                }
+                out.println("            \"rawData\" : [ " + raw + " ]");
+                out.println(r + 1 < results.size() ? "        }," : "        }");
+            }
+            out.println("    ]");
+            out.println("}");
+        }
+    }
+
+    private static String number(double d) {
+        return String.format(Locale.ROOT, "%.6f", d);
+    }
+
+    private static String quote(String s) {
+        if (s == null) return "null";
+        StringBuilder sb = new StringBuilder("\"");
+        for (char ch : s.toCharArray()) {
+            if (ch == '"' || ch == '\\') sb.append('\\');
+            if (ch < 0x20) {
+                sb.append(String.format("\\u%04x", (int) ch));
+            } else {
+                sb.append(ch);
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -3,19 +3,165 @@ package edu.upc.epsevg.prop.oust.players.ramos47262693Q_lopez46497328E;
 import edu.upc.epsevg.prop.oust.*;
 import java.awt.Point;
 import java.util.*;
-
-public class IDSMinimaxPlayer implements IPlayer, IAuto {
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Minimax con profundización iterativa, poda alpha-beta y tabla de
+ * transposición.
+ *
+ * La profundidad se cuenta en turnos: una cadena de capturas es una sola
+ * macro-jugada (las piedras que siguen a una captura no gastan profundidad)
+ * y el lado que maximiza es el que tiene el turno, no el que toca por
+ * alternancia. Una única búsqueda devuelve el turno entero en su variante
+ * principal. Como las capturas independientes se pueden encadenar en
+ * cualquier orden, a media cadena sólo se siguen las mayores.
+ *
+ * Fuera de la variante principal las jugadas sin captura tardías se buscan
+ * con un nivel menos (LMR) y, en la frontera, se descartan si la parte
+ * material de la heurística queda lejos de la ventana (futilidad).
+ *
+ * El tiempo lo lleva un {@link TimeManager}: la búsqueda sale sola al ver
+ * la marca de parada y no se empieza una iteración que no se espera acabar.
+ *
+ * Opcionalmente ({@link #setPondering}) sigue pensando mientras juega el
+ * rival: busca la posición que deja su turno para llenar la TT y, si la
+ * siguiente posición se ha visto así, empieza por la profundidad que ya
+ * tiene.
+ *
+ * Con más de un hilo usa Lazy SMP: los hilos auxiliares repiten la misma
+ * profundización iterativa sobre su propia copia del estado, con
+ * profundidades escalonadas y otro orden de las jugadas tranquilas, y sólo
+ * se comunican a través de la TT compartida. Se devuelve la iteración
+ * completa más profunda que haya terminado cualquier hilo.
+ */
+public class IDSMinimaxPlayer implements IPlayer, IAuto, INewGame, AutoCloseable {
 
     private PlayerType me;
     private long timeLimit;
-    private long startTime;
 
-    private static final int TT_SIZE = 100_000;
+    // Suficiente para conservar las entradas útiles durante toda una partida
+    private static final int TT_MEGABYTES = 128;
+
+    // Ventanas de aspiración: semiancho inicial (unas dos piedras de grupo
+    // grande en la heurística), factor de ensanchado y a partir de qué
+    // semiancho se abre la ventana entera
+    private static final int ASPIRATION_WINDOW = 100;
+    private static final int ASPIRATION_GROWTH = 4;
+    private static final int ASPIRATION_MAX = 5000;
+    private static final int ASPIRATION_MIN_DEPTH = 3;
+
+    // Capturas que se siguen a media cadena (de mayor a menor): seguirlas
+    // todas es probar cada subconjunto de capturas independientes
+    private static final int CHAIN_WIDTH = 2;
+
+    // Poda delta de la quiescencia: lo que vale como mucho cada piedra
+    // capturada (grupo grande y piedras en la heurística) más un margen por
+    // los cambios de grupos
+    private static final int CAPTURE_GAIN = 62;
+    private static final int DELTA_MARGIN = 150;
+
+    // Reducciones de jugadas tardías: profundidad mínima y jugadas que se
+    // buscan enteras antes de empezar a reducir (un nivel)
+    private static final int LMR_MIN_DEPTH = 3;
+    private static final int LMR_FULL_MOVES = 4;
+
+    // Futilidad a profundidad 1 sobre la parte material de la heurística.
+    // Una jugada sin contacto sólo añade una piedra y un grupo de uno, así
+    // que mueve poco esa parte
+    private static final int FUTILITY_MARGIN = 80;
+
+    // Valor de una partida ganada, muy por encima de cualquier heurística. Se
+    // le resta la distancia en plies: mejor ganar antes y perder más tarde
+    private static final int WIN = 1_000_000;
+
+    private final TranspositionTable transTable;
+
+    // Si es cierto, la TT se conserva entre jugadas (y partidas con el mismo color)
+    private final boolean persistentTT;
+    private PlayerType ttOwner;
 
-    private final HashMap<Long, TTEntry> transTable = new HashMap<>(TT_SIZE);
+    // Lazy SMP: searchers[0] corre en el hilo que llama a move()
+    private final Searcher[] searchers;
+    private ExecutorService helpers;
+
+    // Marca de parada (timeout() y límite duro) y límite blando entre iteraciones
+    private final TimeManager time = new TimeManager();
+
+    // Mejor iteración completada por cualquier hilo
+    private int bestDepth;
+    private List<Point> bestSequence;
+
+    // Pondering: un hilo aparte con el buscador principal sobre la posición
+    // que deja nuestra jugada, hasta la siguiente llamada a move()
+    private boolean pondering;
+    private ExecutorService ponderer;
+    private Future<?> ponder;
 
     public IDSMinimaxPlayer(long milliseconds) {
+        this(milliseconds, TT_MEGABYTES, true, 1);
+    }
+
+    public IDSMinimaxPlayer(long milliseconds, int ttMegabytes) {
+        this(milliseconds, ttMegabytes, true, 1);
+    }
+
+    public IDSMinimaxPlayer(long milliseconds, int ttMegabytes, boolean persistentTT) {
+        this(milliseconds, ttMegabytes, persistentTT, 1);
+    }
+
+    /**
+     * @param threads hilos de búsqueda (1 = búsqueda secuencial)
+     */
+    public IDSMinimaxPlayer(long milliseconds, int ttMegabytes, boolean persistentTT, int threads) {
+        if (threads < 1) throw new IllegalArgumentException("threads < 1: " + threads);
         this.timeLimit = milliseconds;
+        this.transTable = new TranspositionTable(ttMegabytes);
+        this.persistentTT = persistentTT;
+
+        searchers = new Searcher[threads];
+        for (int i = 0; i < threads; i++) searchers[i] = new Searcher(i);
+    }
+
+    /**
+     * Vacía la tabla de transposición y las de ordenación de todos los
+     * hilos; pensado para llamarse entre partidas.
+     */
+    @Override
+    public void newGame() {
+        stopPondering();
+        transTable.clear();
+        ttOwner = null;
+        for (Searcher s : searchers) s.ordering.clear();
+    }
+
+    /**
+     * Activa o desactiva el pondering (desactivado por defecto). Sólo tiene
+     * efecto con la TT persistente, que es donde queda lo pensado. Como
+     * compite por la CPU con el rival, sólo compensa si sobran núcleos.
+     */
+    public void setPondering(boolean on) {
+        pondering = on;
+        if (!on) stopPondering();
+    }
+
+    /**
+     * Para el pondering y cierra los hilos auxiliares; pensado para llamarse
+     * al acabar la partida. El jugador se puede seguir usando: los hilos se
+     * vuelven a crear en la siguiente jugada.
+     */
+    @Override
+    public void close() {
+        stopPondering();
+        if (ponderer != null) {
+            ponderer.shutdown();
+            ponderer = null;
+        }
+        if (helpers != null) {
+            helpers.shutdown();
+            helpers = null;
+        }
     }
 
     @Override
@@ -30,307 +176,717 @@ public class IDSMinimaxPlayer implements IPlayer, IAuto {
     @Override
     public PlayerMove move(GameStatus gs) {
 
-        startTime = System.currentTimeMillis();
+        // Lo pensado en el turno del rival queda en la TT
+        int pondered = stopPondering();
+
+        time.start(timeLimit);
         me = gs.getCurrentPlayer();
-        transTable.clear();
 
-        GameStatusTunned root = new GameStatusTunned(gs);
+        // Los valores de la TT están vistos desde "me": si cambia el color
+        // (nueva partida con los colores invertidos) ya no sirven. Una tabla
+        // sin dueño ya está vacía: limpiarla se comería el tiempo de la jugada
+        if (!persistentTT || me != ttOwner) {
+            if (ttOwner != null || !persistentTT) transTable.clear();
+            ttOwner = me;
+        }
+        transTable.newSearch();
+
+        BitboardStatus root = new BitboardStatus(gs);
+
+        // Si la posición se ha pensado, la TT ya la tiene buscada a cierta
+        // profundidad (una menos que la del pondering, que incluía el turno
+        // del rival): las iteraciones anteriores no aportarían nada
+        int firstDepth = 1;
+        if (pondered > 1) {
+            long entry = transTable.probe(root.getHash());
+            if (entry != TranspositionTable.MISS) {
+                firstDepth = Math.max(1, Math.min(TranspositionTable.depth(entry), pondered - 1));
+            }
+        }
+
+        bestDepth = 0;
+        bestSequence = new ArrayList<>();
 
-        List<Point> bestSequence = new ArrayList<>();
+        List<Future<?>> running = new ArrayList<>(searchers.length - 1);
+        if (searchers.length > 1 && helpers == null) {
+            helpers = WorkerPools.fixed("IDSMinimaxPlayer-helper", searchers.length - 1);
+        }
+        for (int i = 0; i < searchers.length; i++) searchers[i].prepare(root, firstDepth);
+        for (int i = 1; i < searchers.length; i++) running.add(helpers.submit(searchers[i]));
 
-        for (int depth = 1; ; depth++) {
+        searchers[0].run();
+
+        // Los auxiliares salen en cuanto ven la marca; hay que esperarlos para
+        // que no sigan escribiendo en la TT durante la siguiente jugada
+        time.stop();
+        for (Future<?> f : running) {
             try {
-                List<Point> candidate = searchDepth(root, depth);
-                if (!candidate.isEmpty()) bestSequence = candidate;
-            } catch (TimeUp e) {
-                break;
+                f.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
             }
         }
 
-        long elapsed = System.currentTimeMillis() - startTime;
-        return new PlayerMove(bestSequence, elapsed, 0, SearchType.MINIMAX);
+        long nodes = 0;
+        for (Searcher s : searchers) nodes += s.nodes;
+
+        List<Point> seq;
+        int depth;
+        synchronized (this) {
+            // Ni la primera iteración ha acabado: antes que devolver un turno
+            // vacío se juega uno sin buscar
+            if (bestSequence.isEmpty()) bestSequence = fallbackTurn(root);
+            seq = bestSequence;
+            depth = bestDepth;
+        }
+
+        if (pondering && persistentTT) startPondering(root, seq);
+
+        return new PlayerMove(seq, nodes, depth, SearchType.MINIMAX_IDS);
     }
 
+    // =====================================================
+    // PONDERING
     // =====================================================
 
-    private List<Point> searchDepth(GameStatusTunned root, int depth) {
-        GameStatusTunned state = new GameStatusTunned(root);
-        List<Point> seq = new ArrayList<>();
+    /**
+     * Lanza el buscador principal sobre la posición que deja {@code seq},
+     * con el mismo límite que una jugada propia: el rival no debería pensar
+     * más y así no se queda buscando si la partida se abandona.
+     */
+    private void startPondering(BitboardStatus root, List<Point> seq) {
+        BitboardStatus next = new BitboardStatus(root);
+        for (Point p : seq) next.placeStone(next.cellOf(p));
+        if (next.isGameOver()) return;
+
+        if (ponderer == null) {
+            ponderer = WorkerPools.fixed("IDSMinimaxPlayer-ponder", 1);
+        }
 
-        while (true) {
-            checkTime();
+        synchronized (this) {
+            bestDepth = 0;
+            bestSequence = new ArrayList<>();
+        }
+        time.start(timeLimit);
+        searchers[0].prepare(next, 1);
+        ponder = ponderer.submit(searchers[0]);
+    }
 
-            Result r = alphabeta(state, depth, Integer.MIN_VALUE, Integer.MAX_VALUE, true);
+    /**
+     * Para el pondering en curso y espera a que acabe. Devuelve la
+     * profundidad que llegó a completar (0 si no había).
+     */
+    private int stopPondering() {
+        if (ponder == null) return 0;
+        time.stop();
+        try {
+            ponder.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+        ponder = null;
+        return completedDepth();
+    }
 
-            if (r.move == null) break;
+    /**
+     * Turno sin búsqueda: la captura mayor mientras el turno siga y después
+     * la primera jugada sin contacto.
+     */
+    private static List<Point> fallbackTurn(BitboardStatus root) {
+        BitboardStatus s = new BitboardStatus(root);
+        MoveGenerator gen = new MoveGenerator();
+        long[] quiet = new long[s.geo.words];
+        List<Point> seq = new ArrayList<>();
 
-            seq.add(r.move);
-            state.placeStone(r.move);
+        while (!s.isGameOver()) {
+            int best = NO_MOVE;
+            int bestSize = 0;
+            int n = gen.generateCaptures(s);
+            for (int i = 0; i < n; i++) {
+                int m = gen.move(i);
+                int size = gen.captureOf(m);
+                if (size > bestSize) {
+                    best = m;
+                    bestSize = size;
+                }
+            }
+            if (best == NO_MOVE) {
+                gen.quietMoves(s, quiet);
+                for (int i = 0; i < quiet.length && best == NO_MOVE; i++) {
+                    if (quiet[i] != 0) best = (i << 6) + Long.numberOfTrailingZeros(quiet[i]);
+                }
+                if (best == NO_MOVE) break;
+            }
 
-            if (!state.getInfo().lastMoveWasCapture) break;
+            seq.add(s.toPoint(best));
+            s.placeStone(best);
+            if (!s.lastMoveWasCapture()) break;
         }
-
         return seq;
     }
 
+    /** Guarda el resultado de una iteración completa si es la más profunda. */
+    private synchronized void publish(int depth, List<Point> seq) {
+        if (depth > bestDepth && !seq.isEmpty()) {
+            bestDepth = depth;
+            bestSequence = seq;
+        }
+    }
+
+    private synchronized int completedDepth() {
+        return bestDepth;
+    }
+
     // =====================================================
-    // ALPHA BETA + TT
+    // HILO DE BÚSQUEDA
     // =====================================================
 
-    private Result alphabeta(GameStatusTunned s, int depth, int alpha, int beta, boolean maximizing) {
-
-        checkTime();
+    /**
+     * Estado de búsqueda de un hilo: su copia del tablero, su generador, sus
+     * buffers de jugadas y sus tablas de ordenación. Sólo la TT es compartida.
+     */
+    private class Searcher implements Runnable {
 
-        long key = computeHash(s);
-        TTEntry entry = transTable.get(key);
+        private final int id;
+        private final MoveGenerator gen = new MoveGenerator();
+        private final MoveOrdering ordering = new MoveOrdering();
 
-        if (entry != null && entry.depth >= depth) {
-            return new Result(entry.value, entry.bestMove);
-        }
+        private BitboardStatus state;
+        private BitboardStatus root;
+        private int firstDepth;
 
-        if (depth == 0 || s.isGameOver()) {
-            int val = evaluate(s);
-            transTable.put(key, new TTEntry(val, null, depth));
-            return new Result(val, null);
-        }
+        // Un MovePicker por nivel, reservados una vez: la búsqueda trabaja
+        // sobre un único estado con makeMove/unmakeMove y no reserva memoria
+        // por nodo
+        private final MovePicker[] pickers = new MovePicker[BitboardStatus.MAX_PLY + 1];
 
-        List<Point> moves = generateMoves(s);
-        if (moves.isEmpty()) {
-            int val = evaluate(s);
-            transTable.put(key, new TTEntry(val, null, depth));
-            return new Result(val, null);
-        }
+        // Variante principal triangular: la fila de cada ply empieza en
+        // ply * PV_STRIDE y tiene pvLength[ply] jugadas
+        private static final int PV_STRIDE = BitboardStatus.MAX_PLY + 1;
+        private final int[] pv = new int[PV_STRIDE * PV_STRIDE];
+        private final int[] pvLength = new int[PV_STRIDE];
 
-        // Ordenar por capturas
-        moves.sort((a, b) -> captureGain(s, b) - captureGain(s, a));
+        private long nodes;
 
-        Point bestMove = null;
-        int bestVal = maximizing ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        // Copia local de la marca de parada: se refresca cada
+        // TimeManager.POLL_INTERVAL nodos
+        private boolean aborted;
 
-        for (Point m : moves) {
+        // El principal acaba la profundidad 1 aunque se pase del límite duro
+        // (sólo la corta timeout()): sin ella se jugaría un turno sin mirar
+        // si le deja ganar al rival
+        private boolean mustFinish;
 
-            GameStatusTunned next = new GameStatusTunned(s);
-            next.placeStone(m);
+        // Valor de la primera piedra en la última iteración completada
+        private int lastScore;
+        private boolean hasScore;
 
-            int val = alphabeta(next, depth - 1, alpha, beta, !maximizing).value;
+        Searcher(int id) {
+            this.id = id;
+        }
 
-            if (maximizing) {
-                if (val > bestVal) { bestVal = val; bestMove = m; }
-                alpha = Math.max(alpha, bestVal);
+        void prepare(BitboardStatus origin, int firstDepth) {
+            this.firstDepth = firstDepth;
+            if (root == null || root.geo != origin.geo) {
+                root = new BitboardStatus(origin);
+                state = new BitboardStatus(origin);
             } else {
-                if (val < bestVal) { bestVal = val; bestMove = m; }
-                beta = Math.min(beta, bestVal);
+                root.copyFrom(origin);
             }
-
-            if (beta <= alpha) break;
+            ordering.newSearch();
+            nodes = 0;
+            aborted = false;
+            hasScore = false;
         }
 
-        transTable.put(key, new TTEntry(bestVal, bestMove, depth));
-        return new Result(bestVal, bestMove);
-    }
+        @Override
+        public void run() {
+            // Los auxiliares impares empiezan un nivel más abajo para que no
+            // todos los hilos busquen la misma profundidad a la vez
+            int depth = firstDepth + (id & 1);
+
+            // La pila de makeMove limita la profundidad (sólo se alcanza cuando
+            // todas las líneas acaban la partida antes)
+            while (depth < BitboardStatus.MAX_PLY) {
+                if (id == 0) time.iterationStarted(nodes);
+                mustFinish = id == 0 && depth == 1;
+                List<Point> seq = searchDepth(depth);
+                if (seq == null) return;
+                publish(depth, seq);
+
+                // Sólo el principal decide si hay tiempo para otra iteración;
+                // los auxiliares siguen hasta que él para
+                if (id == 0) {
+                    time.iterationDone(nodes);
+                    if (!time.canStartIteration()) return;
+                }
+
+                // Un auxiliar que se queda atrás salta a la siguiente
+                // profundidad que nadie ha completado
+                int next = depth + 1;
+                if (id > 0) next = Math.max(next, completedDepth() + 1 + (id & 1));
+                depth = next;
+            }
+        }
 
-    // =====================================================
-    // TRANSPOSICIÓN
-    // =====================================================
+        /** Turno de la iteración {@code depth}, o null si se ha parado antes. */
+        private List<Point> searchDepth(int depth) {
+            state.copyFrom(root);
+            List<Point> seq = new ArrayList<>();
+
+            // La ventana se centra en el valor de la iteración previa
+            int guess = lastScore;
+            boolean known = hasScore;
+            int firstScore = 0;
+
+            // La variante principal ya trae el turno entero. Sólo si queda
+            // cortada a media cadena (un corte de la TT no deja variante) se
+            // vuelve a buscar desde donde acaba
+            while (true) {
+                int score = aspiration(state, depth, guess, known);
+                if (aborted) return null;
+                if (seq.isEmpty()) firstScore = score;
+                guess = score;
+                known = true;
+
+                if (playTurn(seq) == 0) break;
+                if (!state.lastMoveWasCapture() || state.isGameOver()) break;
+            }
 
-    private long computeHash(GameStatusTunned s) {
-        long h = 1469598103934665603L;
-        int size = s.getSquareSize();
+            lastScore = firstScore;
+            hasScore = !seq.isEmpty();
+            return seq;
+        }
 
-        for (int x = 0; x < size; x++) {
-            for (int y = 0; y < size; y++) {
-                PlayerType c = s.getColor(x, y);
-                long v = (c == null ? 0 : (c == PlayerType.PLAYER1 ? 1 : 2));
-                h = (h ^ (v + 31 * x + 131 * y)) * 1099511628211L;
+        /**
+         * Juega sobre {@code state} la parte de la variante principal que
+         * pertenece al turno actual y la añade a {@code seq}. Devuelve cuántas
+         * piedras ha jugado.
+         */
+        private int playTurn(List<Point> seq) {
+            int played = 0;
+            for (int i = 0; i < pvLength[0]; i++) {
+                int m = pv[i];
+                if (!state.isLegal(m)) break;
+
+                seq.add(state.toPoint(m));
+                state.placeStone(m);
+                played++;
+
+                if (!state.lastMoveWasCapture() || state.isGameOver()) break;
             }
+            return played;
         }
-        return h;
-    }
 
-    private static class TTEntry {
-        int value;
-        Point bestMove;
-        int depth;
+        /**
+         * Búsqueda de la raíz con ventana de aspiración alrededor de
+         * {@code guess}. Si el valor cae fuera se ensancha ese lado (cada vez
+         * más) y se repite; si la ventana crece demasiado se abre del todo.
+         */
+        private int aspiration(BitboardStatus s, int depth, int guess, boolean known) {
+            if (!known || depth < ASPIRATION_MIN_DEPTH) {
+                return alphabeta(s, depth, Integer.MIN_VALUE, Integer.MAX_VALUE);
+            }
 
-        TTEntry(int v, Point m, int d) {
-            value = v;
-            bestMove = m;
-            depth = d;
+            int delta = ASPIRATION_WINDOW;
+            int alpha = clamp((long) guess - delta);
+            int beta = clamp((long) guess + delta);
+
+            while (true) {
+                int val = alphabeta(s, depth, alpha, beta);
+                if (aborted) return 0;
+
+                if (val <= alpha && alpha != Integer.MIN_VALUE) {
+                    delta *= ASPIRATION_GROWTH;
+                    alpha = delta > ASPIRATION_MAX ? Integer.MIN_VALUE : clamp((long) val - delta);
+                } else if (val >= beta && beta != Integer.MAX_VALUE) {
+                    delta *= ASPIRATION_GROWTH;
+                    beta = delta > ASPIRATION_MAX ? Integer.MAX_VALUE : clamp((long) val + delta);
+                } else {
+                    return val;
+                }
+            }
         }
-    }
 
-    private List<Point> generateMoves(GameStatus s) {
-    List<Point> list = new ArrayList<>();
-    int size = s.getSquareSize();
+        // =====================================================
+        // ALPHA BETA + TT
+        // =====================================================
+
+        /**
+         * Alpha-beta con TT sobre {@code s}, que queda como estaba al volver.
+         * Si se para la búsqueda devuelve 0 con {@code aborted} activado y
+         * sin tocar la TT: quien llama tiene que salir sin usar el valor.
+         * Maximiza quien tenga el turno si es
+         * {@code me}; la variante principal queda en la fila {@code ply} de
+         * {@code pv}.
+         */
+        private int alphabeta(BitboardStatus s, int depth, int alpha, int beta) {
+
+            if (depth == 0) return quiesce(s, alpha, beta);
+
+            if (shouldStop()) return 0;
+            nodes++;
+
+            int ply = s.ply();
+            pvLength[ply] = 0;
+
+            if (s.isGameOver()) return terminal(s, ply);
+
+            long key = s.getHash();
+            long entry = transTable.probe(key);
+            int hashMove = NO_MOVE;
+
+            if (entry != TranspositionTable.MISS) {
+                hashMove = TranspositionTable.move(entry);
+
+                // Sólo se corta si la cota guardada basta para esta ventana
+                if (TranspositionTable.depth(entry) >= depth) {
+                    int v = fromTable(TranspositionTable.value(entry), ply);
+                    switch (TranspositionTable.bound(entry)) {
+                        case TranspositionTable.EXACT:
+                            setPv(ply, hashMove);
+                            return v;
+                        case TranspositionTable.LOWER:
+                            alpha = Math.max(alpha, v);
+                            break;
+                        default:
+                            beta = Math.min(beta, v);
+                            break;
+                    }
+                    if (beta <= alpha) {
+                        setPv(ply, hashMove);
+                        return v;
+                    }
+                }
+            }
 
-    for (int x = 0; x < size; x++) {
-        for (int y = 0; y < size; y++) {
-            Point p = new Point(x, y);
-            if (!s.isInBounds(p)) continue;
+            // La pila de makeMove también limita las cadenas largas
+            if (ply == BitboardStatus.MAX_PLY) {
+                int val = evaluate(s);
+                transTable.store(key, val, TranspositionTable.EXACT, NO_MOVE, depth);
+                return val;
+            }
 
-            try {
-                GameStatus copy = new GameStatus(s);
-                copy.placeStone(p);
-                list.add(p);
-            } catch (Exception e) {}
-        }
-    }
-    return list;
-}
+            boolean maximizing = s.getCurrentPlayer() == me;
+            boolean pvNode = (long) beta - alpha > 1;
+
+            // Nodos frontera fuera de la variante principal: si la parte
+            // material queda lejos de la ventana no se miran las jugadas sin
+            // captura (salvo la primera). A media cadena no se poda
+            boolean chain = ply > 0 && s.lastMoveWasCapture();
+            boolean futile = false;
+            if (!pvNode && !chain && ply > 0 && depth == 1) {
+                int mat = material(s);
+                futile = maximizing ? (long) mat + FUTILITY_MARGIN <= alpha
+                                    : (long) mat - FUTILITY_MARGIN >= beta;
+            }
 
-    // =====================================================
-    // HEURÍSTICA DE COMPETICIÓN
-    // =====================================================
+            // Los auxiliares rompen los empates de otra forma que el principal.
+            // Con varios hilos la jugada de la TT puede venir de otra posición
+            // con la misma clave: el MovePicker comprueba que sea legal
+            MovePicker picker = picker(ply);
+            picker.init(s, gen, ordering, hashMove, id > 0 ? id * 7 + ply : 0);
+            if (chain) picker.limitCaptures(CHAIN_WIDTH);
+
+            int alphaOrig = alpha;
+            int betaOrig = beta;
+
+            int bestMove = NO_MOVE;
+            int bestVal = maximizing ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+
+            for (int m = picker.next(); m != MovePicker.NONE; m = picker.next()) {
+
+                if (futile && bestMove != NO_MOVE && picker.lastQuiet()) continue;
+
+                // Tras una captura el mismo jugador sigue en el mismo turno:
+                // la continuación no gasta profundidad
+                int captured = s.makeMove(m);
+                int childDepth = captured > 0 ? depth : depth - 1;
+
+                // LMR: fuera de la variante principal, las jugadas sin
+                // captura tardías (ordenadas sólo por historia) se prueban
+                // con un nivel menos
+                int reduction = !pvNode && !chain && depth >= LMR_MIN_DEPTH
+                        && picker.lastFromHistory() && picker.yielded() > LMR_FULL_MOVES ? 1 : 0;
+
+                // PVS: la primera jugada con la ventana entera y el resto con
+                // ventana nula (reducida si toca). Si mejora se repite sin
+                // reducir y, si además no llega al corte, con la ventana entera
+                int val;
+                if (bestMove == NO_MOVE) {
+                    val = alphabeta(s, childDepth, alpha, beta);
+                } else if (maximizing) {
+                    val = alphabeta(s, childDepth - reduction, alpha, alpha + 1);
+                    if (val > alpha && reduction > 0) val = alphabeta(s, childDepth, alpha, alpha + 1);
+                    if (val > alpha && val < beta) val = alphabeta(s, childDepth, alpha, beta);
+                } else {
+                    val = alphabeta(s, childDepth - reduction, beta - 1, beta);
+                    if (val < beta && reduction > 0) val = alphabeta(s, childDepth, beta - 1, beta);
+                    if (val < beta && val > alpha) val = alphabeta(s, childDepth, alpha, beta);
+                }
+                s.unmakeMove();
+                if (aborted) return 0;
+
+                boolean better = bestMove == NO_MOVE || (maximizing ? val > bestVal : val < bestVal);
+                if (better) {
+                    bestVal = val;
+                    bestMove = m;
+                    updatePv(ply, m);
+                }
+                if (maximizing) alpha = Math.max(alpha, bestVal);
+                else beta = Math.min(beta, bestVal);
+
+                if (beta <= alpha) {
+                    ordering.cutoff(s, m, captured, depth);
+                    break;
+                }
+            }
 
-    private int evaluate(GameStatusTunned s) {
+            if (picker.yielded() == 0) {
+                int val = evaluate(s);
+                transTable.store(key, val, TranspositionTable.EXACT, NO_MOVE, depth);
+                return val;
+            }
 
-        MyStatus info = s.getInfo();
-        PlayerType turn = s.getCurrentPlayer();
+            int bound = bestVal <= alphaOrig ? TranspositionTable.UPPER
+                      : bestVal >= betaOrig ? TranspositionTable.LOWER
+                      : TranspositionTable.EXACT;
+            transTable.store(key, toTable(bestVal, ply), bound, bestMove, depth);
 
-        int myStones  = (me == PlayerType.PLAYER1) ? info.stonesP1 : info.stonesP2;
-        int oppStones = (me == PlayerType.PLAYER1) ? info.stonesP2 : info.stonesP1;
+            return bestVal;
+        }
 
-        int myBig  = (me == PlayerType.PLAYER1) ? info.biggestGroupP1 : info.biggestGroupP2;
-        int oppBig = (me == PlayerType.PLAYER1) ? info.biggestGroupP2 : info.biggestGroupP1;
+        /**
+         * Quiescencia: en el horizonte sólo se siguen las capturas. Como
+         * quien captura vuelve a mover, es acabar la cadena del jugador con
+         * el turno. Plantarse equivale a cerrar el turno con una jugada sin
+         * contacto, así que sólo se permite si queda alguna. Como a media
+         * cadena, sólo se siguen las CHAIN_WIDTH capturas mayores.
+         */
+        private int quiesce(BitboardStatus s, int alpha, int beta) {
+
+            if (shouldStop()) return 0;
+            nodes++;
+
+            int ply = s.ply();
+            pvLength[ply] = 0;
+
+            // Antes que la TT y que plantarse: una partida acabada vale su
+            // resultado, y no se guarda a profundidad 0 encima de nada
+            if (s.isGameOver()) return terminal(s, ply);
+            if (ply == BitboardStatus.MAX_PLY) return evaluate(s);
+
+            // Las capturas independientes se pueden hacer en cualquier orden:
+            // con la TT (a profundidad 0) cada subconjunto se mira una vez
+            long key = s.getHash();
+            long entry = transTable.probe(key);
+            if (entry != TranspositionTable.MISS) {
+                int v = fromTable(TranspositionTable.value(entry), ply);
+                switch (TranspositionTable.bound(entry)) {
+                    case TranspositionTable.EXACT:
+                        return v;
+                    case TranspositionTable.LOWER:
+                        if (v >= beta) return v;
+                        break;
+                    default:
+                        if (v <= alpha) return v;
+                        break;
+                }
+            }
 
-        int myGroups  = countGroups(s, me);
-        int oppGroups = countGroups(s, opponentOf(me));
+            int alphaOrig = alpha;
+            int betaOrig = beta;
 
-        int myBestCap  = (turn == me) ? bestCaptureFor(s, me) : 0;
-        int oppBestCap = (turn != me) ? bestCaptureFor(s, opponentOf(me)) : 0;
+            // La generación de capturas de la quiescencia da a la vez la
+            // movilidad y la mayor captura de la heurística
+            MovePicker picker = picker(ply);
+            picker.initCaptures(s, gen);
+            picker.limitCaptures(CHAIN_WIDTH);
 
-        int myMob  = (turn == me) ? countLegalMovesFor(s, me) : 0;
-        int oppMob = (turn != me) ? countLegalMovesFor(s, opponentOf(me)) : 0;
+            int quiet = gen.quietCount(s);
+            int stand = evaluate(s, quiet, picker.captureCount(), picker.bestCapture());
 
-        int score = 0;
+            boolean maximizing = s.getCurrentPlayer() == me;
+            boolean canStand = quiet > 0;
 
-        score += (myBig - oppBig) * 60;
-        score += (oppGroups - myGroups) * 15;
-        score += (myMob - oppMob) * 8;
-        score += (myBestCap - oppBestCap) * 50;
-        score += (myStones - oppStones) * 2;
+            int best = maximizing ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+            if (canStand) {
+                best = stand;
+                if (maximizing) alpha = Math.max(alpha, stand);
+                else beta = Math.min(beta, stand);
+            }
 
-        if (info.lastMoveWasCapture && turn == me) score += 25;
+            int bestMove = NO_MOVE;
+
+            while (beta > alpha) {
+                int m = picker.next();
+                if (m == MovePicker.NONE) break;
+
+                // Poda delta: las capturas salen de mayor a menor, así que si
+                // ni ésta alcanza la ventana tampoco lo hará ninguna otra
+                if (canStand) {
+                    long gain = (long) picker.lastCapture() * CAPTURE_GAIN + DELTA_MARGIN;
+                    if (maximizing ? stand + gain <= alpha : stand - gain >= beta) break;
+                }
+
+                s.makeMove(m);
+                int val = quiesce(s, alpha, beta);
+                s.unmakeMove();
+                if (aborted) return 0;
+
+                if (maximizing ? val > best : val < best) {
+                    best = val;
+                    bestMove = m;
+                }
+                if (maximizing) alpha = Math.max(alpha, best);
+                else beta = Math.min(beta, best);
+            }
 
-        return score;
-    }
+            // Sin capturas ni jugadas sin contacto: el turno pasa
+            if (picker.yielded() == 0 && !canStand) best = stand;
 
-    // =====================================================
-    // AUXILIARES HEURÍSTICA
-    // =====================================================
+            int bound = best <= alphaOrig ? TranspositionTable.UPPER
+                      : best >= betaOrig ? TranspositionTable.LOWER
+                      : TranspositionTable.EXACT;
+            transTable.store(key, toTable(best, ply), bound, bestMove, 0);
+            return best;
+        }
 
-    private PlayerType opponentOf(PlayerType p) {
-        return (p == PlayerType.PLAYER1) ? PlayerType.PLAYER2 : PlayerType.PLAYER1;
-    }
+        /** Variante de un nodo cortado por la TT: sólo su jugada guardada. */
+        private void setPv(int ply, int move) {
+            if (move == NO_MOVE) return;
+            pv[ply * PV_STRIDE] = move;
+            pvLength[ply] = 1;
+        }
 
-    private int bestCaptureFor(GameStatusTunned s, PlayerType p) {
-        if (s.getCurrentPlayer() != p) return 0;
+        /** {@code move} seguida de la variante del hijo (ply + 1). */
+        private void updatePv(int ply, int move) {
+            int row = ply * PV_STRIDE;
+            pv[row] = move;
+            int child = (ply + 1) * PV_STRIDE;
+            int len = pvLength[ply + 1];
+            System.arraycopy(pv, child, pv, row + 1, len);
+            pvLength[ply] = len + 1;
+        }
 
-        int best = 0;
-        List<Point> moves = generateMoves(s);
+        /** Mira la marca de parada cada TimeManager.POLL_INTERVAL nodos. */
+        private boolean shouldStop() {
+            if (!aborted && (nodes & TimeManager.POLL_MASK) == 0) aborted = time.poll(!mustFinish);
+            return aborted;
+        }
 
-        for (Point m : moves) {
-            int cap = captureGain(s, m);
-            if (cap > best) best = cap;
+        private MovePicker picker(int ply) {
+            MovePicker p = pickers[ply];
+            if (p == null) p = pickers[ply] = new MovePicker();
+            return p;
         }
-        return best;
-    }
 
-    private int captureGain(GameStatusTunned s, Point m) {
-        try {
-            GameStatusTunned copy = new GameStatusTunned(s);
-            PlayerType turn = copy.getCurrentPlayer();
+        // =====================================================
+        // HEURÍSTICA DE COMPETICIÓN
+        // =====================================================
 
-            int before = (turn == PlayerType.PLAYER1)
-                    ? copy.getInfo().stonesP2
-                    : copy.getInfo().stonesP1;
+        /** Partida acabada a {@code ply} plies de la raíz. */
+        private int terminal(BitboardStatus s, int ply) {
+            return s.getWinner() == me ? WIN - ply : -WIN + ply;
+        }
 
-            copy.placeStone(m);
+        /** Heurística de un nodo sin jugadas (o al que no se le cuentan). */
+        private int evaluate(BitboardStatus s) {
+            return evaluate(s, 0, 0, 0);
+        }
 
-            int after = (turn == PlayerType.PLAYER1)
-                    ? copy.getInfo().stonesP2
-                    : copy.getInfo().stonesP1;
+        /**
+         * Heurística con la movilidad de quien tiene el turno ya contada por
+         * la quiescencia: {@code quiet} jugadas sin contacto y {@code captures}
+         * capturas, la mayor de {@code bestCap} piedras.
+         */
+        private int evaluate(BitboardStatus s, int quiet, int captures, int bestCap) {
 
-            return Math.max(0, before - after);
-        } catch (Exception e) {
-            return 0;
-        }
-    }
+            PlayerType turn = s.getCurrentPlayer();
 
-    private int countGroups(GameStatus s, PlayerType p) {
-        int size = s.getSquareSize();
-        boolean[][] visited = new boolean[size][size];
-        int groups = 0;
+            // La captura y la movilidad sólo se miran para quien tiene el turno
+            int mob = quiet + captures;
 
-        for (int x = 0; x < size; x++) {
-            for (int y = 0; y < size; y++) {
-                Point start = new Point(x, y);
-                if (!s.isInBounds(start)) continue;
-                if (visited[x][y]) continue;
-                if (s.getColor(x, y) != p) continue;
+            int myBestCap  = (turn == me) ? bestCap : 0;
+            int oppBestCap = (turn != me) ? bestCap : 0;
 
-                floodMark(s, start, p, visited);
-                groups++;
-            }
-        }
-        return groups;
-    }
+            int myMob  = (turn == me) ? mob : 0;
+            int oppMob = (turn != me) ? mob : 0;
 
-    private void floodMark(GameStatus s, Point start, PlayerType p, boolean[][] visited) {
-        ArrayDeque<Point> q = new ArrayDeque<>();
-        q.add(start);
-        visited[start.x][start.y] = true;
-
-        while (!q.isEmpty()) {
-            Point u = q.poll();
-            for (Dir d : Dir.values()) {
-                Point v = d.add(u);
-                if (!s.isInBounds(v)) continue;
-                if (visited[v.x][v.y]) continue;
-                if (s.getColor(v.x, v.y) != p) continue;
-
-                visited[v.x][v.y] = true;
-                q.add(v);
-            }
+            int score = material(s);
+
+            score += (myMob - oppMob) * 8;
+            score += (myBestCap - oppBestCap) * 50;
+
+            if (s.lastMoveWasCapture() && turn == me) score += 25;
+
+            return score;
         }
-    }
 
-    private int countLegalMovesFor(GameStatus s, PlayerType p) {
-        int count = 0;
-        int size = s.getSquareSize();
-
-        for (int x = 0; x < size; x++) {
-            for (int y = 0; y < size; y++) {
-                Point pt = new Point(x, y);
-                if (!s.isInBounds(pt)) continue;
-
-                try {
-                    GameStatus copy = new GameStatus(s);
-                    if (copy.getCurrentPlayer() != p) return count;
-                    copy.placeStone(pt);
-                    count++;
-                } catch (Exception e) {}
-            }
+        /**
+         * Parte de la heurística que no depende de quién tiene el turno:
+         * grupo más grande, número de grupos y piedras.
+         */
+        private int material(BitboardStatus s) {
+
+            PlayerType opp = opponentOf(me);
+
+            int myStones  = s.getStones(me);
+            int oppStones = s.getStones(opp);
+
+            int myBig  = s.biggestGroup(me);
+            int oppBig = s.biggestGroup(opp);
+
+            int myGroups  = s.countGroups(me);
+            int oppGroups = s.countGroups(opp);
+
+            int score = 0;
+
+            score += (myBig - oppBig) * 60;
+            score += (oppGroups - myGroups) * 15;
+            score += (myStones - oppStones) * 2;
+
+            return score;
         }
-        return count;
     }
 
+    // =====================================================
+    // AUXILIARES
     // =====================================================
 
-    private void checkTime() {
-        if (System.currentTimeMillis() - startTime >= timeLimit) {
-            throw new TimeUp();
-        }
+    private PlayerType opponentOf(PlayerType p) {
+        return (p == PlayerType.PLAYER1) ? PlayerType.PLAYER2 : PlayerType.PLAYER1;
+    }
+
+    /**
+     * Las victorias se guardan en la TT a distancia del nodo y no de la
+     * raíz: la misma posición se alcanza a otros plies (y desde otras
+     * raíces si la TT se conserva entre jugadas).
+     */
+    private static int toTable(int v, int ply) {
+        if (v >= WIN / 2) return v + ply;
+        if (v <= -WIN / 2) return v - ply;
+        return v;
+    }
+
+    private static int fromTable(int v, int ply) {
+        if (v >= WIN / 2) return v - ply;
+        if (v <= -WIN / 2) return v + ply;
+        return v;
     }
 
-    private static class Result {
-        int value;
-        Point move;
-        Result(int v, Point m) { value = v; move = m; }
+    private static int clamp(long v) {
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, v));
     }
 
-    private static class TimeUp extends RuntimeException {}
+    private static final int NO_MOVE = -1;
 
     @Override
-    public void timeout() {}
+    public void timeout() {
+        time.stop();
+    }
 }
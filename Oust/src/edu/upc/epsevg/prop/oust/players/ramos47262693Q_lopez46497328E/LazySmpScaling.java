@@ -0,0 +1,56 @@
+package edu.upc.epsevg.prop.oust.players.ramos47262693Q_lopez46497328E;
+
+import edu.upc.epsevg.prop.oust.GameStatus;
+import edu.upc.epsevg.prop.oust.PlayerMove;
+import java.util.List;
+
+/**
+ * Informe de escalado de {@link IDSMinimaxPlayer} en modo Lazy SMP: nodos
+ * por segundo y profundidad media alcanzada en las posiciones estándar
+ * ({@link BenchPositions}) para 1, 2, 4... hilos.
+ *
+ * Uso: LazySmpScaling [ms por posición = 1000] [hilos máximos = núcleos]
+ */
+public class LazySmpScaling {
+
+    private static final int TT_MEGABYTES = 64;
+
+    public static void main(String[] args) {
+        long ms = args.length > 0 ? Long.parseLong(args[0]) : 1000;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1])
+                                         : Runtime.getRuntime().availableProcessors();
+
+        List<GameStatus> positions = BenchPositions.standard();
+        System.out.println("Lazy SMP: " + positions.size() + " posiciones, "
+                + ms + " ms por posición, " + Runtime.getRuntime().availableProcessors() + " núcleos");
+        System.out.println("hilos\tprof.media\tnodos/s\t\tescalado");
+
+        double baseNps = 0;
+        for (int threads = 1; threads <= maxThreads; threads = next(threads, maxThreads)) {
+            long nodes = 0;
+            long depths = 0;
+            long nanos = 0;
+            // TT nueva en cada posición: todas las filas parten de cero. Los
+            // hilos de una fila se cierran antes de medir la siguiente
+            try (IDSMinimaxPlayer player = new IDSMinimaxPlayer(ms, TT_MEGABYTES, false, threads)) {
+                for (GameStatus gs : positions) {
+                    long t0 = System.nanoTime();
+                    PlayerMove pm = player.move(new GameStatus(gs));
+                    nanos += System.nanoTime() - t0;
+                    nodes += pm.getNumerOfNodesExplored();
+                    depths += pm.getMaxDepthReached();
+                }
+            }
+
+            double nps = nodes * 1e9 / nanos;
+            if (threads == 1) baseNps = nps;
+            System.out.printf("%d\t%.2f\t\t%,.0f\t%.2fx%n",
+                    threads, (double) depths / positions.size(), nps, nps / baseNps);
+        }
+    }
+
+    private static int next(int threads, int max) {
+        if (threads == max) return max + 1;
+        return Math.min(threads * 2, max);
+    }
+}
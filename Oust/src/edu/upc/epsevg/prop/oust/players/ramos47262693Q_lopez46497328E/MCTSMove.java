@@ -0,0 +1,39 @@
+package edu.upc.epsevg.prop.oust.players.ramos47262693Q_lopez46497328E;
+
+import edu.upc.epsevg.prop.oust.PlayerMove;
+import edu.upc.epsevg.prop.oust.SearchType;
+import java.awt.Point;
+import java.util.List;
+
+/**
+ * Jugada de {@link MCTSPlayer}: además de los nodos y la profundidad lleva
+ * las partidas simuladas y el tiempo de búsqueda, para dar el ritmo.
+ */
+public class MCTSMove extends PlayerMove {
+
+    private final long playouts;
+    private final long nanos;
+
+    public MCTSMove(List<Point> points, long nodes, int depth, long playouts, long nanos) {
+        super(points, nodes, depth, SearchType.MONTECARLO);
+        this.playouts = playouts;
+        this.nanos = nanos;
+    }
+
+    public long getPlayouts() {
+        return playouts;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    /** Nodos añadidos al árbol por segundo. */
+    public double getNodesPerSecond() {
+        return nanos == 0 ? 0 : getNumerOfNodesExplored() * 1e9 / nanos;
+    }
+
+    public double getPlayoutsPerSecond() {
+        return nanos == 0 ? 0 : playouts * 1e9 / nanos;
+    }
+}
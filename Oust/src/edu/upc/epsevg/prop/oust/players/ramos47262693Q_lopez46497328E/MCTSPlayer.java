@@ -0,0 +1,418 @@
+package edu.upc.epsevg.prop.oust.players.ramos47262693Q_lopez46497328E;
+
+import edu.upc.epsevg.prop.oust.*;
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Monte Carlo Tree Search con UCT: baja por el árbol eligiendo la cota UCT
+ * más alta, expande la hoja, acaba la partida al azar con un
+ * {@link PlayoutEngine} y suma el resultado a todo el camino.
+ *
+ * Cada nodo es una piedra: tras una captura el mismo jugador sigue, así que
+ * un turno puede ser una rama de varios nodos. La jugada devuelta sigue los
+ * hijos más visitados hasta que acaba el turno.
+ *
+ * El árbol ({@link MCTSTree}) sobrevive entre jugadas: al volver a mover se
+ * busca, bajo el nodo al que llevó nuestro turno, el que corresponde a lo
+ * que ha jugado el rival y se conserva sólo ese subárbol.
+ *
+ * Con más de un hilo hay dos modos ({@link Parallelism}): todos sobre el
+ * mismo árbol con pérdida virtual, o cada uno con su árbol y, al acabar, se
+ * suman las visitas de cada jugada del turno. En el segundo modo los
+ * árboles no se reutilizan entre jugadas.
+ */
+public class MCTSPlayer implements IPlayer, IAuto, AutoCloseable {
+
+    /** Cómo se reparten el trabajo los hilos. */
+    public enum Parallelism {
+        /** Un solo árbol compartido, con pérdida virtual. */
+        TREE,
+        /** Un árbol por hilo; se suman las visitas al acabar. */
+        ROOT
+    }
+
+    private static final double DEFAULT_EXPLORATION = Math.sqrt(2);
+    private static final int DEFAULT_MAX_NODES = 1 << 20;
+
+    // Una hoja se expande en su segunda visita: la primera sólo simula
+    private static final int EXPAND_VISITS = 1;
+
+    // Visitas sin victoria que deja un hilo en el camino que está simulando
+    private static final int VIRTUAL_LOSS = 1;
+
+    // Iteraciones entre consulta y consulta del reloj (menos uno)
+    private static final int POLL_MASK = 15;
+
+    // Jugadas de una simulación, por casilla del tablero, antes de decidirla
+    // por piedras
+    private static final int PLAYOUT_MOVES_PER_CELL = 4;
+
+    private final long timeLimit;
+    private final double exploration;
+    private final Parallelism parallelism;
+
+    private final TimeManager time = new TimeManager();
+    private final PlayoutEngine random = new PlayoutEngine();
+    private final MoveGenerator gen = new MoveGenerator();
+
+    // Árbol compartido (modo TREE) y uno de repuesto para compactar al
+    // reutilizar
+    private MCTSTree tree;
+    private MCTSTree spare;
+
+    // workers[0] corre en el hilo que llama a move()
+    private final Worker[] workers;
+    private ExecutorService helpers;
+
+    private BitboardStatus rootState;
+    private int me;
+
+    // Nodo al que llevó nuestro último turno (NONE si se salió del árbol)
+    // y su posición
+    private int turnNode = MCTSTree.NONE;
+    private BitboardStatus turnState;
+
+    public MCTSPlayer(long milliseconds) {
+        this(milliseconds, DEFAULT_EXPLORATION, DEFAULT_MAX_NODES, 1, Parallelism.TREE);
+    }
+
+    public MCTSPlayer(long milliseconds, double exploration) {
+        this(milliseconds, exploration, DEFAULT_MAX_NODES, 1, Parallelism.TREE);
+    }
+
+    public MCTSPlayer(long milliseconds, double exploration, int maxNodes) {
+        this(milliseconds, exploration, maxNodes, 1, Parallelism.TREE);
+    }
+
+    /**
+     * @param exploration constante C de UCT
+     * @param maxNodes    capacidad total de los árboles; lleno, se sigue
+     *                    simulando desde las hojas sin expandir más
+     * @param threads     hilos de búsqueda (1 = búsqueda secuencial)
+     */
+    public MCTSPlayer(long milliseconds, double exploration, int maxNodes, int threads, Parallelism parallelism) {
+        if (threads < 1) throw new IllegalArgumentException("threads < 1: " + threads);
+        if (maxNodes < threads) throw new IllegalArgumentException("maxNodes < threads: " + maxNodes);
+        this.timeLimit = milliseconds;
+        this.exploration = exploration;
+        this.parallelism = parallelism;
+
+        workers = new Worker[threads];
+        if (parallelism == Parallelism.TREE) {
+            tree = new MCTSTree(maxNodes);
+            spare = new MCTSTree(maxNodes);
+            tree.reset();
+            for (int i = 0; i < threads; i++) workers[i] = new Worker(random.split(), null);
+        } else {
+            for (int i = 0; i < threads; i++) {
+                workers[i] = new Worker(random.split(), new MCTSTree(maxNodes / threads));
+            }
+        }
+    }
+
+    /**
+     * Cierra los hilos auxiliares; pensado para llamarse al acabar la
+     * partida. El jugador se puede seguir usando: los hilos se vuelven a
+     * crear en la siguiente jugada.
+     */
+    @Override
+    public void close() {
+        if (helpers != null) {
+            helpers.shutdown();
+            helpers = null;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "MCTSPlayer";
+    }
+
+    @Override
+    public void timeout() {
+        time.stop();
+    }
+
+    // =====================================================
+    // MOVE PRINCIPAL
+    // =====================================================
+
+    @Override
+    public PlayerMove move(GameStatus gs) {
+
+        time.start(timeLimit);
+        long start = System.nanoTime();
+
+        BitboardStatus root = new BitboardStatus(gs);
+        me = root.current;
+        if (parallelism == Parallelism.TREE) reuseTree(root);
+        rootState = root;
+
+        for (Worker w : workers) w.prepare(tree);
+        long initialSize = treeSize();
+
+        List<Future<?>> running = new ArrayList<>(workers.length - 1);
+        if (workers.length > 1 && helpers == null) {
+            helpers = WorkerPools.fixed("MCTSPlayer-helper", workers.length - 1);
+        }
+        for (int i = 1; i < workers.length; i++) running.add(helpers.submit(workers[i]));
+
+        workers[0].run();
+
+        // Los auxiliares salen en cuanto ven la marca; hay que esperarlos
+        // antes de leer los árboles
+        time.stop();
+        for (Future<?> f : running) {
+            try {
+                f.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            }
+        }
+
+        long iterations = 0;
+        int maxDepth = 0;
+        for (Worker w : workers) {
+            iterations += w.iterations;
+            maxDepth = Math.max(maxDepth, w.maxDepth);
+        }
+
+        MCTSTree[] trees = new MCTSTree[tree != null ? 1 : workers.length];
+        for (int i = 0; i < trees.length; i++) trees[i] = workers[i].tree;
+
+        float[] winRate = new float[1];
+        List<Point> seq = chooseTurn(trees, winRate);
+        long nanos = System.nanoTime() - start;
+
+        MCTSMove result = new MCTSMove(seq, treeSize() - initialSize, maxDepth, iterations, nanos);
+        result.setH(winRate[0]);
+        return result;
+    }
+
+    /** Nodos en el árbol compartido o, si no hay, en todos los de los hilos. */
+    private long treeSize() {
+        if (tree != null) return tree.size;
+        long size = 0;
+        for (Worker w : workers) size += w.tree.size;
+        return size;
+    }
+
+    /**
+     * Turno a jugar: en cada piedra, la jugada con más visitas sumando las
+     * de todos los árboles, mientras siga siendo nuestro turno. Si a media
+     * cadena se acaba el árbol, se completa con la captura mayor (o una
+     * jugada al azar si no hay). Deja en {@code winRate[0]} la proporción de
+     * victorias de la primera piedra.
+     */
+    private List<Point> chooseTurn(MCTSTree[] trees, float[] winRate) {
+        BitboardStatus s = new BitboardStatus(rootState);
+        List<Point> seq = new ArrayList<>();
+
+        int[] at = new int[trees.length];
+        int[] votes = new int[s.geo.bits];
+        int[] won = new int[s.geo.bits];
+
+        do {
+            // Visitas y victorias por jugada en todos los árboles
+            int m = MoveGenerator.ILLEGAL;
+            for (int t = 0; t < trees.length; t++) {
+                if (at[t] == MCTSTree.NONE || !trees[t].isExpanded(at[t])) continue;
+                int first = trees[t].firstChild[at[t]];
+                for (int c = first; c < first + trees[t].childCount[at[t]]; c++) {
+                    int cell = trees[t].move[c];
+                    votes[cell] += trees[t].visits[c];
+                    won[cell] += trees[t].wins[c];
+                    if (m == MoveGenerator.ILLEGAL || votes[cell] > votes[m]) m = cell;
+                }
+            }
+
+            if (m != MoveGenerator.ILLEGAL) {
+                if (seq.isEmpty() && votes[m] > 0) winRate[0] = (float) won[m] / votes[m];
+                for (int t = 0; t < trees.length; t++) at[t] = child(trees[t], at[t], m);
+                Arrays.fill(votes, 0);
+                Arrays.fill(won, 0);
+            } else {
+                Arrays.fill(at, MCTSTree.NONE);
+                m = biggestCapture(s);
+                if (m == MoveGenerator.ILLEGAL) m = random.randomMove(s);
+                if (m == MoveGenerator.ILLEGAL) break;
+            }
+            seq.add(s.toPoint(m));
+            s.placeStone(m);
+        } while (!s.isGameOver() && s.current == me);
+
+        turnNode = at[0];
+        turnState = s;
+        return seq;
+    }
+
+    /** Hijo de {@code n} que juega en {@code cell}, o NONE. */
+    private static int child(MCTSTree t, int n, int cell) {
+        if (n == MCTSTree.NONE || !t.isExpanded(n)) return MCTSTree.NONE;
+        int first = t.firstChild[n];
+        for (int c = first; c < first + t.childCount[n]; c++) {
+            if (t.move[c] == cell) return c;
+        }
+        return MCTSTree.NONE;
+    }
+
+    private int biggestCapture(BitboardStatus s) {
+        int best = MoveGenerator.ILLEGAL;
+        int n = gen.generateCaptures(s);
+        for (int i = 0; i < n; i++) {
+            int m = gen.move(i);
+            if (best == MoveGenerator.ILLEGAL || gen.captureOf(m) > gen.captureOf(best)) best = m;
+        }
+        return best;
+    }
+
+    // =====================================================
+    // HILO DE BÚSQUEDA
+    // =====================================================
+
+    /**
+     * Estado de un hilo: su copia del tablero, su generador, su camino y su
+     * fuente de azar. Trabaja sobre el árbol compartido o sobre el suyo.
+     */
+    private class Worker implements Runnable {
+
+        private final PlayoutEngine playouts;
+        private final MoveGenerator gen = new MoveGenerator();
+        private final MCTSTree own;
+
+        private MCTSTree tree;
+        private boolean shared;
+        private BitboardStatus scratch;
+        private int[] path = new int[BitboardStatus.MAX_PLY];
+
+        private long iterations;
+        private int maxDepth;
+
+        Worker(PlayoutEngine playouts, MCTSTree own) {
+            this.playouts = playouts;
+            this.own = own;
+        }
+
+        /**
+         * Prepara una jugada sobre {@code sharedTree} o, si es null, sobre
+         * su propio árbol vaciado.
+         */
+        void prepare(MCTSTree sharedTree) {
+            if (sharedTree == null) own.reset();
+            tree = sharedTree == null ? own : sharedTree;
+            shared = sharedTree != null && workers.length > 1;
+            if (scratch == null || scratch.geo != rootState.geo) scratch = new BitboardStatus(rootState);
+            iterations = 0;
+            maxDepth = 0;
+        }
+
+        @Override
+        public void run() {
+            int maxMoves = PLAYOUT_MOVES_PER_CELL * rootState.geo.cellCount;
+
+            while ((iterations & POLL_MASK) != 0 || !time.poll()) {
+                int depth = descend();
+                int winner = playouts.playout(scratch, maxMoves);
+                if (shared) {
+                    for (int i = 0; i <= depth; i++) tree.updateShared(path[i], winner, VIRTUAL_LOSS);
+                } else {
+                    for (int i = 0; i <= depth; i++) tree.update(path[i], winner);
+                }
+                iterations++;
+                maxDepth = Math.max(maxDepth, depth);
+            }
+        }
+
+        /**
+         * Selección y expansión: deja en {@code scratch} la posición de la
+         * hoja y en {@code path} el camino desde la raíz. Devuelve su
+         * longitud. En el árbol compartido cada nodo del camino lleva ya su
+         * pérdida virtual.
+         */
+        private int descend() {
+            scratch.copyFrom(rootState);
+            int n = 0;
+            int depth = 0;
+            push(0, 0);
+
+            while (tree.isExpanded(n) && !scratch.isGameOver()) {
+                n = tree.select(n, exploration);
+                scratch.placeStone(tree.move[n]);
+                push(++depth, n);
+            }
+
+            // En el árbol compartido las visitas de la hoja ya llevan nuestra
+            // pérdida virtual: sin ella se expandiría en la primera visita.
+            // La de otro hilo sí cuenta, es una simulación que está en marcha
+            int visits = tree.visits[n] - (shared ? VIRTUAL_LOSS : 0);
+            if (!scratch.isGameOver() && visits >= EXPAND_VISITS && tree.expand(n, scratch, gen)) {
+                n = tree.select(n, exploration);
+                scratch.placeStone(tree.move[n]);
+                push(++depth, n);
+            }
+            return depth;
+        }
+
+        private void push(int depth, int n) {
+            if (depth == path.length) path = Arrays.copyOf(path, 2 * depth);
+            path[depth] = n;
+            if (shared) tree.addVirtualLoss(n, VIRTUAL_LOSS);
+        }
+    }
+
+    // =====================================================
+    // REUTILIZACIÓN DEL ÁRBOL
+    // =====================================================
+
+    /**
+     * Si {@code root} cuelga del nodo de nuestro último turno, ese subárbol
+     * pasa a ser el árbol entero; si no, se empieza de cero.
+     */
+    private void reuseTree(BitboardStatus root) {
+        int found = MCTSTree.NONE;
+        if (turnNode != MCTSTree.NONE && turnState.geo == root.geo) {
+            BitboardStatus s = new BitboardStatus(turnState);
+            found = find(turnNode, s, root.getHash());
+        }
+        turnNode = MCTSTree.NONE;
+
+        if (found == MCTSTree.NONE) {
+            tree.reset();
+        } else if (found != 0) {
+            spare.copySubtree(tree, found);
+            MCTSTree t = tree;
+            tree = spare;
+            spare = t;
+        }
+    }
+
+    /**
+     * Nodo bajo {@code n} (posición {@code s}) con clave {@code key}, sin
+     * pasar del turno del rival: en cuanto vuelve a tocarnos, o coincide o
+     * no es.
+     */
+    private int find(int n, BitboardStatus s, long key) {
+        if (s.getHash() == key) return n;
+        if (s.current == me || s.isGameOver() || !tree.isExpanded(n)
+                || s.ply() == BitboardStatus.MAX_PLY) {
+            return MCTSTree.NONE;
+        }
+
+        int first = tree.firstChild[n];
+        for (int c = first; c < first + tree.childCount[n]; c++) {
+            s.makeMove(tree.move[c]);
+            int f = find(c, s, key);
+            s.unmakeMove();
+            if (f != MCTSTree.NONE) return f;
+        }
+        return MCTSTree.NONE;
+    }
+}
@@ -0,0 +1,61 @@
+package edu.upc.epsevg.prop.oust.players.ramos47262693Q_lopez46497328E;
+
+import edu.upc.epsevg.prop.oust.GameStatus;
+import java.util.List;
+
+/**
+ * Informe de escalado de {@link MCTSPlayer} en paralelo: partidas simuladas
+ * por segundo en las posiciones estándar ({@link BenchPositions}) para 1,
+ * 2, 4... hilos, con el árbol compartido y con un árbol por hilo.
+ *
+ * Uso: MCTSScaling [ms por posición = 1000] [hilos máximos = núcleos]
+ */
+public class MCTSScaling {
+
+    private static final double EXPLORATION = Math.sqrt(2);
+    private static final int MAX_NODES = 1 << 20;
+
+    public static void main(String[] args) {
+        long ms = args.length > 0 ? Long.parseLong(args[0]) : 1000;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1])
+                                         : Runtime.getRuntime().availableProcessors();
+
+        List<GameStatus> positions = BenchPositions.standard();
+        System.out.println("MCTS: " + positions.size() + " posiciones, "
+                + ms + " ms por posición, " + Runtime.getRuntime().availableProcessors() + " núcleos");
+
+        for (MCTSPlayer.Parallelism mode : MCTSPlayer.Parallelism.values()) {
+            System.out.println();
+            System.out.println(mode);
+            System.out.println("hilos\tsimulaciones/s\tnodos/s\t\tescalado");
+
+            double basePps = 0;
+            for (int threads = 1; threads <= maxThreads; threads = next(threads, maxThreads)) {
+                long playouts = 0;
+                long nodes = 0;
+                long nanos = 0;
+                // Las posiciones no están relacionadas: el árbol no se
+                // reutiliza. Los hilos de una fila se cierran antes de medir
+                // la siguiente
+                try (MCTSPlayer player = new MCTSPlayer(ms, EXPLORATION, MAX_NODES, threads, mode)) {
+                    for (GameStatus gs : positions) {
+                        MCTSMove m = (MCTSMove) player.move(new GameStatus(gs));
+                        playouts += m.getPlayouts();
+                        nodes += m.getNumerOfNodesExplored();
+                        nanos += m.getNanos();
+                    }
+                }
+
+                double pps = playouts * 1e9 / nanos;
+                if (threads == 1) basePps = pps;
+                System.out.printf("%d\t%,.0f\t\t%,.0f\t%.2fx%n",
+                        threads, pps, nodes * 1e9 / nanos, pps / basePps);
+            }
+        }
+    }
+
+    private static int next(int threads, int max) {
+        if (threads == max) return max + 1;
+        return Math.min(threads * 2, max);
+    }
+}
@@ -0,0 +1,201 @@
+package edu.upc.epsevg.prop.oust.players.ramos47262693Q_lopez46497328E;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Árbol de {@link MCTSPlayer} en arrays primitivos de capacidad fija. El
+ * nodo 0 es la raíz y los hijos de un nodo ocupan un bloque contiguo que se
+ * reserva de golpe al expandirlo, así que un nodo sólo guarda dónde empieza
+ * el bloque y cuántos hay.
+ *
+ * Las victorias de un nodo se cuentan para quien hizo la jugada que lleva a
+ * él ({@code mover}): como quien captura repite, no basta con alternar.
+ *
+ * Varios hilos pueden compartir el árbol (MCTS en paralelo sobre el
+ * árbol): los contadores se actualizan con operaciones atómicas sobre los
+ * mismos arrays, la expansión de un nodo la reclama un solo hilo con un
+ * CAS sobre {@code firstChild} y los bloques de hijos se reservan con un
+ * CAS sobre {@code size}. reset() y copySubtree() son de un solo hilo.
+ */
+final class MCTSTree {
+
+    static final int NONE = -1;
+
+    // firstChild de un nodo que otro hilo está expandiendo
+    private static final int EXPANDING = -2;
+
+    private static final VarHandle INTS = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final VarHandle SIZE;
+
+    static {
+        try {
+            SIZE = MethodHandles.lookup().findVarHandle(MCTSTree.class, "size", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    final int capacity;
+
+    final int[] move;
+    final int[] firstChild;   // NONE mientras no se expande
+    final int[] childCount;
+    final int[] visits;
+    final int[] wins;
+    final byte[] mover;
+
+    int size;
+
+    MCTSTree(int capacity) {
+        this.capacity = capacity;
+        move = new int[capacity];
+        firstChild = new int[capacity];
+        childCount = new int[capacity];
+        visits = new int[capacity];
+        wins = new int[capacity];
+        mover = new byte[capacity];
+    }
+
+    /** Deja sólo la raíz, sin estadísticas. */
+    void reset() {
+        size = 1;
+        init(0, NONE, -1);
+    }
+
+    /** Cierto si los hijos de {@code n} ya se pueden recorrer. */
+    boolean isExpanded(int n) {
+        return (int) INTS.getAcquire(firstChild, n) >= 0;
+    }
+
+    /**
+     * Crea un hijo por cada jugada legal de {@code s}, que es la posición de
+     * {@code n}. Devuelve false (y no toca nada) si no hay jugadas, no caben
+     * o ya lo está expandiendo otro hilo.
+     */
+    boolean expand(int n, BitboardStatus s, MoveGenerator gen) {
+        // Sin sitio ni para el peor caso no vale la pena generar
+        if ((int) SIZE.getVolatile(this) + s.geo.cellCount > capacity) return false;
+        if (!INTS.compareAndSet(firstChild, n, NONE, EXPANDING)) return false;
+
+        int count = gen.generate(s);
+        int first = count == 0 ? NONE : reserve(count);
+        if (first == NONE) {
+            INTS.setRelease(firstChild, n, NONE);
+            return false;
+        }
+
+        byte who = (byte) s.current;
+        for (int i = 0; i < count; i++) init(first + i, gen.move(i), who);
+
+        // Los hijos quedan visibles para los demás hilos al publicar el bloque
+        childCount[n] = count;
+        INTS.setRelease(firstChild, n, first);
+        return true;
+    }
+
+    private int reserve(int count) {
+        while (true) {
+            int first = (int) SIZE.getVolatile(this);
+            if (first + count > capacity) return NONE;
+            if (SIZE.compareAndSet(this, first, first + count)) return first;
+        }
+    }
+
+    /**
+     * Hijo de {@code n} con mayor cota UCT; los que aún no tienen visitas
+     * van primero.
+     */
+    int select(int n, double exploration) {
+        int first = firstChild[n];
+        int end = first + childCount[n];
+        double logParent = Math.log(Math.max(1, visits[n]));
+
+        int best = first;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (int c = first; c < end; c++) {
+            int v = visits[c];
+            if (v == 0) return c;
+            double value = (double) wins[c] / v + exploration * Math.sqrt(logParent / v);
+            if (value > bestValue) {
+                bestValue = value;
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    /** Hijo de {@code n} más visitado, o NONE si no está expandido. */
+    int mostVisited(int n) {
+        if (!isExpanded(n)) return NONE;
+        int first = firstChild[n];
+        int best = first;
+        for (int c = first + 1; c < first + childCount[n]; c++) {
+            if (visits[c] > visits[best]) best = c;
+        }
+        return best;
+    }
+
+    /** Suma una partida que ha ganado {@code winner} al nodo {@code n}. */
+    void update(int n, int winner) {
+        visits[n]++;
+        if (mover[n] == winner) wins[n]++;
+    }
+
+    /**
+     * Pérdida virtual: un hilo que pasa por {@code n} le suma {@code loss}
+     * visitas sin victoria, para que los demás tiendan a ir por otro lado
+     * hasta que llegue el resultado.
+     */
+    void addVirtualLoss(int n, int loss) {
+        INTS.getAndAdd(visits, n, loss);
+    }
+
+    /**
+     * Como {@link #update}, de forma atómica y retirando la pérdida virtual
+     * que se añadió al bajar.
+     */
+    void updateShared(int n, int winner, int loss) {
+        INTS.getAndAdd(visits, n, 1 - loss);
+        if (mover[n] == winner) INTS.getAndAdd(wins, n, 1);
+    }
+
+    /**
+     * Copia en este árbol (vaciándolo antes) el subárbol de {@code from} que
+     * cuelga de {@code subroot}, que pasa a ser la raíz. Recorre en anchura
+     * para conservar los bloques de hijos contiguos.
+     */
+    void copySubtree(MCTSTree from, int subroot) {
+        copyNode(from, subroot, 0);
+        size = 1;
+
+        // Los nodos copiados hacen de cola: el i-ésimo guarda aún en
+        // firstChild el índice de sus hijos en "from"
+        for (int i = 0; i < size; i++) {
+            int src = firstChild[i];
+            if (src < 0) continue;
+            int count = childCount[i];
+            firstChild[i] = size;
+            for (int k = 0; k < count; k++) copyNode(from, src + k, size + k);
+            size += count;
+        }
+    }
+
+    private void copyNode(MCTSTree from, int src, int dst) {
+        move[dst] = from.move[src];
+        firstChild[dst] = from.firstChild[src];
+        childCount[dst] = from.childCount[src];
+        visits[dst] = from.visits[src];
+        wins[dst] = from.wins[src];
+        mover[dst] = from.mover[src];
+    }
+
+    private void init(int n, int m, int who) {
+        move[n] = m;
+        firstChild[n] = NONE;
+        childCount[n] = 0;
+        visits[n] = 0;
+        wins[n] = 0;
+        mover[n] = (byte) who;
+    }
+}
@@ -3,14 +3,65 @@ package edu.upc.epsevg.prop.oust.players.ramos47262693Q_lopez46497328E;
 import edu.upc.epsevg.prop.oust.*;
 import java.awt.Point;
 import java.util.*;
-
-public class MinimaxPlayer implements IPlayer, IAuto {
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Minimax a profundidad fija con poda alpha-beta. Maximiza quien tenga el
+ * turno si es {@code me}: tras una captura vuelve a mover el mismo jugador.
+ *
+ * Con más de un hilo reparte el árbol con Young Brothers Wait sobre un
+ * ForkJoinPool: en cada nodo con profundidad suficiente se busca primero el
+ * hijo mayor en secuencial y después se lanzan los hermanos como tareas que
+ * comparten la ventana del nodo y se abandonan si hay un corte. Devuelve la
+ * misma jugada y el mismo valor que la búsqueda secuencial.
+ */
+public class MinimaxPlayer implements IPlayer, IAuto, AutoCloseable {
 
     private PlayerType me;
     private int maxDepth;
 
+    // Profundidad restante mínima para repartir los hermanos en tareas:
+    // por debajo el coste de la tarea supera al del subárbol
+    private static final int SPLIT_DEPTH = 3;
+
+    // Capturas que sigue la quiescencia (de mayor a menor). Sin TT, seguir
+    // más de una es probar cada subconjunto de capturas independientes
+    private static final int CHAIN_WIDTH = 1;
+
+    // Valor de una partida ganada, muy por encima de cualquier heurística. Se
+    // le resta la distancia en plies: mejor ganar antes y perder más tarde
+    private static final int WIN = 1_000_000;
+
+    private final Worker serial = new Worker(null, 0);
+    private final int threads;
+    private ForkJoinPool pool;
+
     public MinimaxPlayer(int depth) {
+        this(depth, 1);
+    }
+
+    /**
+     * @param threads hilos de búsqueda (1 = búsqueda secuencial)
+     */
+    public MinimaxPlayer(int depth, int threads) {
+        if (threads < 1) throw new IllegalArgumentException("threads < 1: " + threads);
         this.maxDepth = depth;
+        this.threads = threads;
+    }
+
+    /**
+     * Cierra los hilos del pool; pensado para llamarse al acabar la partida.
+     * El jugador se puede seguir usando: el pool se vuelve a crear en la
+     * siguiente jugada.
+     */
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
     }
 
     @Override
@@ -25,135 +76,352 @@ public class MinimaxPlayer implements IPlayer, IAuto {
     @Override
     public PlayerMove move(GameStatus gs) {
 
-        long start = System.currentTimeMillis();
-
-        GameStatusTunned state = new GameStatusTunned(gs);
+        BitboardStatus state = new BitboardStatus(gs);
         me = gs.getCurrentPlayer();
+        serial.ensureStack(state, maxDepth);
+        serial.ordering.newSearch();
+        serial.nodes = 0;
+        if (threads > 1 && pool == null) pool = new ForkJoinPool(threads);
 
         List<Point> fullSequence = new ArrayList<>();
+        int value = 0;
 
         while (true) {
-            Result r = alphabeta(state, maxDepth, Integer.MIN_VALUE, Integer.MAX_VALUE, true);
+            if (pool == null) {
+                value = serial.alphabeta(state, maxDepth, Integer.MIN_VALUE, Integer.MAX_VALUE);
+            } else {
+                RootTask root = new RootTask(state);
+                pool.invoke(root);
+                value = root.value;
+            }
+            int m = serial.rootMove;
 
-            if (r.move == null) break;
+            if (m == NO_MOVE) break;
 
-            fullSequence.add(r.move);
-            state.placeStone(r.move);
+            fullSequence.add(state.toPoint(m));
+            state.placeStone(m);
 
-            if (!state.getInfo().lastMoveWasCapture) break;
+            if (!state.lastMoveWasCapture()) break;
         }
 
-        long elapsed = System.currentTimeMillis() - start;
-
-        return new PlayerMove(fullSequence, elapsed, 0, SearchType.MINIMAX);
+        PlayerMove pm = new PlayerMove(fullSequence, serial.nodes, maxDepth, SearchType.MINIMAX);
+        pm.setH(value);
+        return pm;
     }
 
     // =====================================================
-    // ALPHA-BETA
+    // ESTADO DE BÚSQUEDA
     // =====================================================
 
-    private Result alphabeta(GameStatusTunned s, int depth, int alpha, int beta, boolean maximizing) {
+    /**
+     * Generador, buffers, tablas de ordenación y contador de nodos de una
+     * búsqueda. La secuencial usa siempre el mismo; en paralelo cada tarea
+     * tiene el suyo y hereda la historia de quien la lanza.
+     */
+    private final class Worker {
+
+        private final MoveGenerator gen = new MoveGenerator();
+        private final MoveOrdering ordering = new MoveOrdering();
+
+        // Cortes de los nodos repartidos por encima (null en secuencial)
+        private final SplitPoint chain;
+
+        // Plies de la raíz al estado de la tarea, que es una copia con la
+        // pila vacía: la distancia a una victoria es la misma en paralelo
+        private final int plyBase;
+
+        // Un MovePicker por nivel, reservados la primera vez que se llega (la
+        // quiescencia pasa de la profundidad fija): la búsqueda trabaja sobre
+        // un único estado con makeMove/unmakeMove y no reserva memoria por
+        // nodo. moveStack guarda la lista completa de los nodos repartidos
+        private final MovePicker[] pickers = new MovePicker[BitboardStatus.MAX_PLY + 1];
+        private int[][] moveStack;
+        private int rootMove;
+        private long nodes;
+
+        Worker(SplitPoint chain, int plyBase) {
+            this.chain = chain;
+            this.plyBase = plyBase;
+        }
 
-        if (depth == 0 || s.isGameOver()) {
-            return new Result(evaluate(s), null);
+        void ensureStack(BitboardStatus s, int depth) {
+            int cells = s.cells().length;
+            if (moveStack == null || moveStack.length <= depth || moveStack[0].length < cells) {
+                moveStack = new int[depth + 1][cells];
+            }
         }
 
-        List<Point> moves = generateMoves(s);
+        // =====================================================
+        // ALPHA-BETA
+        // =====================================================
+
+        /**
+         * Alpha-beta sobre {@code s}, que queda como estaba al volver. La mejor
+         * jugada de la raíz (ply 0) se deja en {@code rootMove}. Si un corte de
+         * más arriba deja la búsqueda sin sentido devuelve un valor cualquiera,
+         * que quien cortó ya no mira.
+         */
+        int alphabeta(BitboardStatus s, int depth, int alpha, int beta) {
+
+            nodes++;
+            int ply = s.ply();
+            if (ply == 0) rootMove = NO_MOVE;
+
+            if (chain != null && chain.isAborted()) return 0;
+
+            if (s.isGameOver()) return terminal(s, ply);
+            if (depth == 0) return quiesce(s, alpha, beta);
+
+            MovePicker picker = startPicker(s, ply);
+            int bestMove = NO_MOVE;
+            int bestValue;
+
+            if (s.getCurrentPlayer() == me) {
+                bestValue = Integer.MIN_VALUE;
+
+                for (int m = picker.next(); m != MovePicker.NONE; m = picker.next()) {
+                    int captured = s.makeMove(m);
+                    int val = alphabeta(s, depth - 1, alpha, beta);
+                    s.unmakeMove();
+
+                    if (val > bestValue) {
+                        bestValue = val;
+                        bestMove = m;
+                    }
+
+                    alpha = Math.max(alpha, bestValue);
+                    if (beta <= alpha) {
+                        ordering.cutoff(s, m, captured, depth);
+                        break;
+                    }
+                }
+            } else {
+                bestValue = Integer.MAX_VALUE;
+
+                for (int m = picker.next(); m != MovePicker.NONE; m = picker.next()) {
+                    int captured = s.makeMove(m);
+                    int val = alphabeta(s, depth - 1, alpha, beta);
+                    s.unmakeMove();
+
+                    if (val < bestValue) {
+                        bestValue = val;
+                        bestMove = m;
+                    }
+
+                    beta = Math.min(beta, bestValue);
+                    if (beta <= alpha) {
+                        ordering.cutoff(s, m, captured, depth);
+                        break;
+                    }
+                }
+            }
+
+            if (picker.yielded() == 0) {
+                return evaluate(s);
+            }
 
-        if (moves.isEmpty()) {
-            return new Result(evaluate(s), null);
+            if (ply == 0) rootMove = bestMove;
+            return bestValue;
         }
 
-        // Ordenar movimientos: capturas primero → poda más eficaz
-        moves.sort((a, b) -> captureGain(s, b) - captureGain(s, a));
+        /**
+         * Alpha-beta con Young Brothers Wait: el primer hijo se busca aquí
+         * mismo y el resto se reparte en tareas que comparten un SplitPoint.
+         * Por debajo de SPLIT_DEPTH sigue en secuencial.
+         */
+        int split(BitboardStatus s, int depth, int alpha, int beta) {
 
-        Point bestMove = null;
+            if (depth < SPLIT_DEPTH || s.isGameOver()) {
+                return alphabeta(s, depth, alpha, beta);
+            }
 
-        if (maximizing) {
-            int bestValue = Integer.MIN_VALUE;
+            nodes++;
+            int ply = s.ply();
+            if (ply == 0) rootMove = NO_MOVE;
 
-            for (Point m : moves) {
-                GameStatusTunned next = new GameStatusTunned(s);
-                next.placeStone(m);
+            if (chain != null && chain.isAborted()) return 0;
 
-                int val = alphabeta(next, depth - 1, alpha, beta, false).value;
+            boolean maximizing = s.getCurrentPlayer() == me;
 
-                if (val > bestValue) {
-                    bestValue = val;
-                    bestMove = m;
-                }
+            // Aquí hace falta la lista entera para repartir los hermanos
+            MovePicker picker = startPicker(s, ply);
+            int[] moves = moveStack[ply];
+            int n = 0;
+            for (int m = picker.next(); m != MovePicker.NONE; m = picker.next()) moves[n++] = m;
+            if (n == 0) return evaluate(s);
 
-                alpha = Math.max(alpha, bestValue);
-                if (beta <= alpha) break;
+            // Hermano mayor en secuencial: fija la ventana de los demás
+            int captured = s.makeMove(moves[0]);
+            int first = split(s, depth - 1, alpha, beta);
+            s.unmakeMove();
+
+            if (maximizing) alpha = Math.max(alpha, first);
+            else beta = Math.min(beta, first);
+
+            if (beta <= alpha) ordering.cutoff(s, moves[0], captured, depth);
+            if (n == 1 || beta <= alpha) {
+                if (ply == 0) rootMove = moves[0];
+                return first;
             }
-            return new Result(bestValue, bestMove);
-        } else {
-            int bestValue = Integer.MAX_VALUE;
 
-            for (Point m : moves) {
-                GameStatusTunned next = new GameStatusTunned(s);
-                next.placeStone(m);
+            // En la raíz se buscan los hermanos con alpha - 1 para conocer el
+            // valor exacto de los empates y quedarse, como en secuencial, con
+            // la primera jugada del orden que alcanza el máximo
+            boolean root = ply == 0 && chain == null;
+            SplitPoint sp = new SplitPoint(chain, maximizing, root, alpha, beta, first, moves[0]);
+
+            // Mientras espera en invokeAll este hilo no toca s (sólo roba
+            // tareas con su propio estado), así que las tareas lo copian
+            // al empezar y las que se abandonan no llegan a copiarlo
+            SiblingTask[] tasks = new SiblingTask[n - 1];
+            for (int i = 1; i < n; i++) {
+                tasks[i - 1] = new SiblingTask(this, sp, s, moves[i], i, depth - 1);
+            }
+            ForkJoinTask.invokeAll(tasks);
 
-                int val = alphabeta(next, depth - 1, alpha, beta, true).value;
+            for (SiblingTask t : tasks) nodes += t.nodes;
 
-                if (val < bestValue) {
-                    bestValue = val;
-                    bestMove = m;
-                }
+            synchronized (sp) {
+                if (ply == 0) rootMove = sp.bestMove;
+                return sp.best;
+            }
+        }
 
-                beta = Math.min(beta, bestValue);
+        /**
+         * Quiescencia: en el horizonte sólo se siguen las capturas. Como
+         * quien captura vuelve a mover, es acabar la cadena del jugador con
+         * el turno. Plantarse equivale a cerrar el turno con una jugada sin
+         * contacto, así que sólo se permite si queda alguna. Sólo se siguen
+         * las CHAIN_WIDTH capturas mayores.
+         *
+         * Sin poda delta: depende de la ventana y la búsqueda paralela dejaría
+         * de dar el mismo valor que la secuencial.
+         */
+        private int quiesce(BitboardStatus s, int alpha, int beta) {
+
+            nodes++;
+            int ply = s.ply();
+
+            if (s.isGameOver()) return terminal(s, ply);
+            if (ply == BitboardStatus.MAX_PLY) return evaluate(s);
+
+            // La generación de capturas de la quiescencia da a la vez la
+            // movilidad y la mayor captura de la heurística
+            MovePicker picker = picker(ply);
+            picker.initCaptures(s, gen);
+            picker.limitCaptures(CHAIN_WIDTH);
+
+            int quiet = gen.quietCount(s);
+            int stand = evaluate(s, quiet, picker.captureCount(), picker.bestCapture());
+
+            boolean maximizing = s.getCurrentPlayer() == me;
+            boolean canStand = quiet > 0;
+
+            int best = maximizing ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+            if (canStand) {
+                if (maximizing ? stand >= beta : stand <= alpha) return stand;
+                if (maximizing) alpha = Math.max(alpha, stand);
+                else beta = Math.min(beta, stand);
+                best = stand;
+            }
+
+            for (int m = picker.next(); m != MovePicker.NONE; m = picker.next()) {
+                s.makeMove(m);
+                int val = quiesce(s, alpha, beta);
+                s.unmakeMove();
+
+                if (maximizing) {
+                    if (val > best) best = val;
+                    alpha = Math.max(alpha, best);
+                } else {
+                    if (val < best) best = val;
+                    beta = Math.min(beta, best);
+                }
                 if (beta <= alpha) break;
             }
-            return new Result(bestValue, bestMove);
+
+            // Sin capturas ni jugadas sin contacto: el turno pasa
+            if (picker.yielded() == 0 && !canStand) return stand;
+            return best;
         }
-    }
 
-    // =====================================================
-    // GENERACIÓN DE JUGADAS
-    // =====================================================
+        // =====================================================
+        // GENERACIÓN DE JUGADAS
+        // =====================================================
+
+        /**
+         * Prepara las jugadas del nodo: capturas de mayor a menor, killers,
+         * contra-jugada e historia.
+         *
+         * En la raíz de la búsqueda secuencial o paralela sólo se ordena por
+         * capturas: a igual valor gana la primera jugada del orden, y así el
+         * orden (y la jugada elegida) no depende de las tablas de cada hilo.
+         */
+        private MovePicker startPicker(BitboardStatus s, int ply) {
+            MovePicker picker = picker(ply);
+            boolean fixedOrder = ply == 0 && chain == null;
+            picker.init(s, gen, fixedOrder ? null : ordering, NO_MOVE, 0);
+            return picker;
+        }
 
-    private List<Point> generateMoves(GameStatus s) {
-        List<Point> list = new ArrayList<>();
-        int size = s.getSquareSize();
+        private MovePicker picker(int ply) {
+            MovePicker p = pickers[ply];
+            if (p == null) p = pickers[ply] = new MovePicker();
+            return p;
+        }
 
-        for (int x = 0; x < size; x++) {
-            for (int y = 0; y < size; y++) {
-                Point p = new Point(x, y);
-                if (!s.isInBounds(p)) continue;
+        // =====================================================
+        // HEURÍSTICA DE COMPETICIÓN
+        // =====================================================
 
-                try {
-                    GameStatus copy = new GameStatus(s);
-                    copy.placeStone(p);
-                    list.add(p);
-                } catch (Exception e) {}
-            }
+        /** Partida acabada a {@code ply} plies del estado de la tarea. */
+        private int terminal(BitboardStatus s, int ply) {
+            int dist = plyBase + ply;
+            return s.getWinner() == me ? WIN - dist : -WIN + dist;
+        }
+
+        /** Heurística de un nodo sin jugadas (o al que no se le cuentan). */
+        private int evaluate(BitboardStatus s) {
+            return evaluate(s, 0, 0, 0);
+        }
+
+        private int evaluate(BitboardStatus s, int quiet, int captures, int bestCap) {
+            return MinimaxPlayer.evaluate(s, me, quiet, captures, bestCap);
         }
-        return list;
     }
 
     // =====================================================
-    // HEURÍSTICA DE COMPETICIÓN
+    // EVALUACIÓN
     // =====================================================
 
-    private int evaluate(GameStatusTunned s) {
+    /**
+     * Heurística de {@code s} para {@code me} con la movilidad de quien tiene
+     * el turno ya contada por la quiescencia: {@code quiet} jugadas sin
+     * contacto y {@code captures} capturas, la mayor de {@code bestCap}
+     * piedras. No depende del estado del jugador (la usan los benchmarks).
+     */
+    static int evaluate(BitboardStatus s, PlayerType me, int quiet, int captures, int bestCap) {
 
-        MyStatus info = s.getInfo();
         PlayerType turn = s.getCurrentPlayer();
+        PlayerType opp = opponentOf(me);
+
+        int myStones  = s.getStones(me);
+        int oppStones = s.getStones(opp);
 
-        int myStones  = (me == PlayerType.PLAYER1) ? info.stonesP1 : info.stonesP2;
-        int oppStones = (me == PlayerType.PLAYER1) ? info.stonesP2 : info.stonesP1;
+        int myBig  = s.biggestGroup(me);
+        int oppBig = s.biggestGroup(opp);
 
-        int myBig  = (me == PlayerType.PLAYER1) ? info.biggestGroupP1 : info.biggestGroupP2;
-        int oppBig = (me == PlayerType.PLAYER1) ? info.biggestGroupP2 : info.biggestGroupP1;
+        int myGroups  = s.countGroups(me);
+        int oppGroups = s.countGroups(opp);
 
-        int myGroups  = countGroups(s, me);
-        int oppGroups = countGroups(s, opponentOf(me));
+        // La captura y la movilidad sólo se miran para quien tiene el turno
+        int mob = quiet + captures;
 
-        int myBestCap  = (turn == me) ? bestCaptureFor(s, me) : 0;
-        int oppBestCap = (turn != me) ? bestCaptureFor(s, opponentOf(me)) : 0;
+        int myBestCap  = (turn == me) ? bestCap : 0;
+        int oppBestCap = (turn != me) ? bestCap : 0;
 
-        int myMob  = (turn == me) ? countLegalMovesFor(s, me) : 0;
-        int oppMob = (turn != me) ? countLegalMovesFor(s, opponentOf(me)) : 0;
+        int myMob  = (turn == me) ? mob : 0;
+        int oppMob = (turn != me) ? mob : 0;
 
         int score = 0;
 
@@ -163,119 +431,150 @@ public class MinimaxPlayer implements IPlayer, IAuto {
         score += (myBestCap - oppBestCap) * 50;
         score += (myStones - oppStones) * 2;
 
-        if (info.lastMoveWasCapture && turn == me) score += 25;
+        if (s.lastMoveWasCapture() && turn == me) score += 25;
 
         return score;
     }
 
     // =====================================================
-    // AUXILIARES HEURÍSTICA
+    // BÚSQUEDA PARALELA (YOUNG BROTHERS WAIT)
     // =====================================================
 
-    private PlayerType opponentOf(PlayerType p) {
-        return (p == PlayerType.PLAYER1) ? PlayerType.PLAYER2 : PlayerType.PLAYER1;
-    }
+    /**
+     * Nodo repartido: ventana compartida por los hermanos, mejor resultado
+     * hasta ahora y marca de corte. Una tarea ve el corte de cualquier nodo
+     * repartido por encima de ella a través de {@code parent}.
+     */
+    private static final class SplitPoint {
+
+        final SplitPoint parent;
+        final boolean maximizing;
+        final boolean root;
+
+        volatile int alpha;
+        volatile int beta;
+        volatile boolean aborted;
+
+        int best;
+        int bestMove;
+        int bestIndex;
+
+        SplitPoint(SplitPoint parent, boolean maximizing, boolean root,
+                   int alpha, int beta, int first, int firstMove) {
+            this.parent = parent;
+            this.maximizing = maximizing;
+            this.root = root;
+            this.alpha = alpha;
+            this.beta = beta;
+            this.best = first;
+            this.bestMove = firstMove;
+        }
 
-    private int bestCaptureFor(GameStatusTunned s, PlayerType p) {
-        if (s.getCurrentPlayer() != p) return 0;
+        boolean isAborted() {
+            for (SplitPoint sp = this; sp != null; sp = sp.parent) {
+                if (sp.aborted) return true;
+            }
+            return false;
+        }
 
-        int best = 0;
-        List<Point> moves = generateMoves(s);
+        /**
+         * Aporta el valor de un hermano. Se descarta si ya hubo un corte aquí
+         * o más arriba: la búsqueda pudo quedarse a medias.
+         */
+        synchronized void offer(int val, int move, int index) {
+            if (isAborted()) return;
+
+            boolean better = maximizing ? val > best : val < best;
+            if (better || (root && val == best && index < bestIndex)) {
+                best = val;
+                bestMove = move;
+                bestIndex = index;
+            }
+            if (maximizing) alpha = Math.max(alpha, best);
+            else beta = Math.min(beta, best);
 
-        for (Point m : moves) {
-            int cap = captureGain(s, m);
-            if (cap > best) best = cap;
+            if (beta <= alpha) aborted = true;
         }
-        return best;
     }
 
-    private int captureGain(GameStatusTunned s, Point m) {
-        try {
-            GameStatusTunned copy = new GameStatusTunned(s);
-            PlayerType turn = copy.getCurrentPlayer();
+    /** Búsqueda de un hermano menor con su propia copia del estado. */
+    private final class SiblingTask extends RecursiveAction {
 
-            int before = (turn == PlayerType.PLAYER1)
-                    ? copy.getInfo().stonesP2
-                    : copy.getInfo().stonesP1;
+        private static final long serialVersionUID = 1L;
 
-            copy.placeStone(m);
+        private final Worker owner;
+        private final SplitPoint sp;
+        private final BitboardStatus parent;
+        private final int move;
+        private final int index;
+        private final int depth;
 
-            int after = (turn == PlayerType.PLAYER1)
-                    ? copy.getInfo().stonesP2
-                    : copy.getInfo().stonesP1;
+        long nodes;
 
-            return Math.max(0, before - after);
-        } catch (Exception e) {
-            return 0;
+        SiblingTask(Worker owner, SplitPoint sp, BitboardStatus parent, int move, int index, int depth) {
+            this.owner = owner;
+            this.sp = sp;
+            this.parent = parent;
+            this.move = move;
+            this.index = index;
+            this.depth = depth;
         }
-    }
 
-    private int countGroups(GameStatus s, PlayerType p) {
-        int size = s.getSquareSize();
-        boolean[][] visited = new boolean[size][size];
-        int groups = 0;
+        @Override
+        protected void compute() {
+            if (sp.isAborted()) return;
 
-        for (int x = 0; x < size; x++) {
-            for (int y = 0; y < size; y++) {
-                Point start = new Point(x, y);
-                if (!s.isInBounds(start)) continue;
-                if (visited[x][y]) continue;
-                if (s.getColor(x, y) != p) continue;
+            // La ventana se lee al empezar: las tareas que arrancan tarde ya
+            // aprovechan lo que han encontrado sus hermanos
+            int alpha = sp.alpha;
+            int beta = sp.beta;
+            if (sp.root && alpha != Integer.MIN_VALUE) alpha--;
 
-                floodMark(s, start, p, visited);
-                groups++;
-            }
+            BitboardStatus state = new BitboardStatus(parent);
+            state.placeStone(move);
+
+            // Como el estado, la historia de quien lanza la tarea no cambia
+            // mientras espera en invokeAll
+            Worker w = new Worker(sp, owner.plyBase + parent.ply() + 1);
+            w.ensureStack(state, depth);
+            w.ordering.copyHistory(owner.ordering);
+            int val = w.split(state, depth, alpha, beta);
+            nodes = w.nodes;
+
+            sp.offer(val, move, index);
         }
-        return groups;
     }
 
-    private void floodMark(GameStatus s, Point start, PlayerType p, boolean[][] visited) {
-        ArrayDeque<Point> q = new ArrayDeque<>();
-        q.add(start);
-        visited[start.x][start.y] = true;
-
-        while (!q.isEmpty()) {
-            Point u = q.poll();
-            for (Dir d : Dir.values()) {
-                Point v = d.add(u);
-                if (!s.isInBounds(v)) continue;
-                if (visited[v.x][v.y]) continue;
-                if (s.getColor(v.x, v.y) != p) continue;
-
-                visited[v.x][v.y] = true;
-                q.add(v);
-            }
+    /** Raíz de la búsqueda paralela: corre dentro del pool. */
+    private final class RootTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final BitboardStatus state;
+        private int value;
+
+        RootTask(BitboardStatus state) {
+            this.state = state;
         }
-    }
 
-    private int countLegalMovesFor(GameStatus s, PlayerType p) {
-        int count = 0;
-        int size = s.getSquareSize();
-
-        for (int x = 0; x < size; x++) {
-            for (int y = 0; y < size; y++) {
-                Point pt = new Point(x, y);
-                if (!s.isInBounds(pt)) continue;
-
-                try {
-                    GameStatus copy = new GameStatus(s);
-                    if (copy.getCurrentPlayer() != p) return count;
-                    copy.placeStone(pt);
-                    count++;
-                } catch (Exception e) {}
-            }
+        @Override
+        protected void compute() {
+            value = serial.split(state, maxDepth, Integer.MIN_VALUE, Integer.MAX_VALUE);
         }
-        return count;
     }
 
+    // =====================================================
+    // AUXILIARES HEURÍSTICA
     // =====================================================
 
-    private static class Result {
-        int value;
-        Point move;
-        Result(int v, Point m) { value = v; move = m; }
+    private static PlayerType opponentOf(PlayerType p) {
+        return (p == PlayerType.PLAYER1) ? PlayerType.PLAYER2 : PlayerType.PLAYER1;
     }
 
+    // =====================================================
+
+    private static final int NO_MOVE = -1;
+
     @Override
     public void timeout() {
         // no hacer nada
@@ -0,0 +1,299 @@
+package edu.upc.epsevg.prop.oust.players.ramos47262693Q_lopez46497328E;
+
+import java.util.Arrays;
+
+/**
+ * Generador de jugadas legales de Oust sin copias ni excepciones.
+ *
+ * Clasifica cada casilla vacía a partir de la estructura de grupos del
+ * {@link BitboardStatus}: sin contacto (legal, no captura), de captura (con
+ * el número de piedras capturadas) o ilegal. Para ello primero se calcula,
+ * para cada grupo propio, la lista de grupos rivales adyacentes; una casilla
+ * de contacto une los grupos propios vecinos y enfrenta el grupo resultante
+ * a la unión de esas listas más los rivales vecinos de la propia casilla.
+ *
+ * Los resultados viven en los buffers del generador hasta la siguiente
+ * llamada a {@link #generate(BitboardStatus)}. No es thread-safe: cada hilo
+ * de búsqueda usa el suyo.
+ */
+public final class MoveGenerator {
+
+    public static final int ILLEGAL = -1;
+
+    private HexGeometry geo;
+
+    // Resultado de la última generación
+    private int[] moves;
+    private int[] captureOf;
+    private int count;
+    private int bestCapture;
+
+    // Grupos propios: piedras encadenadas por grupo y listas de rivales
+    private int[] ownRoots;
+    private int[] head;
+    private int[] nextStone;
+    private int[] adjStart;
+    private int[] adjEnd;
+    private int[] adjList;
+
+    // Marcas para no contar dos veces el mismo grupo rival
+    private int[] stamp;
+    private int token;
+
+    private final int[] nearRoots = new int[6];
+
+    private long[] halo;
+    private long[] quiet;
+
+    // =====================================================
+    // GENERACIÓN
+    // =====================================================
+
+    /**
+     * Genera las jugadas legales del jugador actual en el orden de
+     * getMoves() (filas y columnas crecientes).
+     *
+     * @return número de jugadas legales
+     */
+    public int generate(BitboardStatus s) {
+        ensureCapacity(s.geo);
+        count = 0;
+        bestCapture = 0;
+        if (s.isGameOver()) return 0;
+
+        int player = s.current;
+        long[] own = player == BitboardStatus.P1 ? s.stones1 : s.stones2;
+        long[] opp = player == BitboardStatus.P1 ? s.stones2 : s.stones1;
+
+        int roots = collectGroups(s, own, opp);
+
+        for (int c : geo.cells) {
+            int cap;
+            if (HexGeometry.test(own, c) || HexGeometry.test(opp, c)) {
+                cap = ILLEGAL;
+            } else {
+                cap = classify(s, c, own, opp);
+            }
+            captureOf[c] = cap;
+            if (cap != ILLEGAL) {
+                moves[count++] = c;
+                if (cap > bestCapture) bestCapture = cap;
+            }
+        }
+
+        for (int i = 0; i < roots; i++) head[ownRoots[i]] = HexGeometry.NONE;
+        return count;
+    }
+
+    /**
+     * Genera sólo las capturas del jugador actual, en el orden de
+     * getMoves(). Únicamente se clasifican las casillas vacías que tocan
+     * una piedra propia: las demás siempre son legales y nunca capturan.
+     * {@link #captureOf(int)} sólo es válido para las jugadas generadas.
+     *
+     * @return número de capturas
+     */
+    public int generateCaptures(BitboardStatus s) {
+        ensureCapacity(s.geo);
+        count = 0;
+        bestCapture = 0;
+        if (s.isGameOver()) return 0;
+
+        int player = s.current;
+        long[] own = player == BitboardStatus.P1 ? s.stones1 : s.stones2;
+        long[] opp = player == BitboardStatus.P1 ? s.stones2 : s.stones1;
+
+        int roots = collectGroups(s, own, opp);
+
+        geo.dilate(own, halo);
+        for (int i = 0; i < geo.words; i++) {
+            for (long w = halo[i] & ~(own[i] | opp[i]); w != 0; w &= w - 1) {
+                int c = (i << 6) + Long.numberOfTrailingZeros(w);
+                int cap = classify(s, c, own, opp);
+                captureOf[c] = cap;
+                if (cap > 0) {
+                    moves[count++] = c;
+                    if (cap > bestCapture) bestCapture = cap;
+                }
+            }
+        }
+
+        for (int i = 0; i < roots; i++) head[ownRoots[i]] = HexGeometry.NONE;
+        return count;
+    }
+
+    /**
+     * Deja en {@code dst} las jugadas sin contacto del jugador actual: las
+     * casillas vacías sin ninguna piedra propia al lado. Son legales sin más
+     * comprobaciones y no capturan.
+     *
+     * @return número de jugadas sin contacto
+     */
+    public int quietMoves(BitboardStatus s, long[] dst) {
+        ensureCapacity(s.geo);
+        if (s.isGameOver()) {
+            for (int i = 0; i < geo.words; i++) dst[i] = 0L;
+            return 0;
+        }
+        long[] own = s.current == BitboardStatus.P1 ? s.stones1 : s.stones2;
+
+        geo.dilate(own, halo);
+        int n = 0;
+        for (int i = 0; i < geo.words; i++) {
+            dst[i] = geo.valid[i] & ~(s.stones1[i] | s.stones2[i]) & ~halo[i];
+            n += Long.bitCount(dst[i]);
+        }
+        return n;
+    }
+
+    /** Número de jugadas sin contacto (ver {@link #quietMoves}). */
+    public int quietCount(BitboardStatus s) {
+        ensureCapacity(s.geo);
+        return quietMoves(s, quiet);
+    }
+
+    /** Cierto si {@code cell} es una jugada sin contacto legal en {@code s}. */
+    static boolean isQuiet(BitboardStatus s, int cell) {
+        HexGeometry g = s.geo;
+        if (s.isGameOver() || !g.isValid(cell)) return false;
+        if (HexGeometry.test(s.stones1, cell) || HexGeometry.test(s.stones2, cell)) return false;
+
+        long[] own = s.current == BitboardStatus.P1 ? s.stones1 : s.stones2;
+        int base = cell * 6;
+        for (int d = 0; d < 6; d++) {
+            int v = g.neighbours[base + d];
+            if (v != HexGeometry.NONE && HexGeometry.test(own, v)) return false;
+        }
+        return true;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public int move(int i) {
+        return moves[i];
+    }
+
+    /** Piedras capturadas al jugar en {@code cell} (ILLEGAL si no es legal). */
+    public int captureOf(int cell) {
+        return captureOf[cell];
+    }
+
+    /** Mayor captura disponible en la última generación. */
+    public int bestCapture() {
+        return bestCapture;
+    }
+
+    // =====================================================
+    // AUXILIARES
+    // =====================================================
+
+    /**
+     * Agrupa las piedras propias por raíz y construye, para cada grupo, la
+     * lista de raíces rivales adyacentes (sin repetidos).
+     *
+     * @return número de grupos propios
+     */
+    private int collectGroups(BitboardStatus s, long[] own, long[] opp) {
+        int roots = 0;
+        for (int i = 0; i < geo.words; i++) {
+            for (long w = own[i]; w != 0; w &= w - 1) {
+                int c = (i << 6) + Long.numberOfTrailingZeros(w);
+                int r = s.find(c);
+                if (head[r] == HexGeometry.NONE) ownRoots[roots++] = r;
+                nextStone[c] = head[r];
+                head[r] = c;
+            }
+        }
+
+        int used = 0;
+        for (int k = 0; k < roots; k++) {
+            int r = ownRoots[k];
+            adjStart[r] = used;
+            token++;
+            for (int c = head[r]; c != HexGeometry.NONE; c = nextStone[c]) {
+                int base = c * 6;
+                for (int d = 0; d < 6; d++) {
+                    int v = geo.neighbours[base + d];
+                    if (v == HexGeometry.NONE || !HexGeometry.test(opp, v)) continue;
+                    int er = s.find(v);
+                    if (stamp[er] != token) {
+                        stamp[er] = token;
+                        adjList[used++] = er;
+                    }
+                }
+            }
+            adjEnd[r] = used;
+        }
+        return roots;
+    }
+
+    private int classify(BitboardStatus s, int c, long[] own, long[] opp) {
+        int base = c * 6;
+
+        // Grupos propios vecinos (sin repetidos)
+        int near = 0;
+        for (int d = 0; d < 6; d++) {
+            int v = geo.neighbours[base + d];
+            if (v == HexGeometry.NONE || !HexGeometry.test(own, v)) continue;
+            int r = s.find(v);
+            boolean seen = false;
+            for (int k = 0; k < near; k++) {
+                if (nearRoots[k] == r) { seen = true; break; }
+            }
+            if (!seen) nearRoots[near++] = r;
+        }
+        if (near == 0) return 0;
+
+        int size = 1;
+        for (int k = 0; k < near; k++) size += s.groupSize[nearRoots[k]];
+
+        // Grupos rivales tocados por el grupo resultante
+        token++;
+        int maxEnemy = 0;
+        int captured = 0;
+        for (int d = 0; d < 6; d++) {
+            int v = geo.neighbours[base + d];
+            if (v == HexGeometry.NONE || !HexGeometry.test(opp, v)) continue;
+            int er = s.find(v);
+            if (stamp[er] != token) {
+                stamp[er] = token;
+                maxEnemy = Math.max(maxEnemy, s.groupSize[er]);
+                captured += s.groupSize[er];
+            }
+        }
+        for (int k = 0; k < near; k++) {
+            int r = nearRoots[k];
+            for (int i = adjStart[r]; i < adjEnd[r]; i++) {
+                int er = adjList[i];
+                if (stamp[er] != token) {
+                    stamp[er] = token;
+                    maxEnemy = Math.max(maxEnemy, s.groupSize[er]);
+                    captured += s.groupSize[er];
+                }
+            }
+        }
+
+        if (maxEnemy == 0 || maxEnemy >= size) return ILLEGAL;
+        return captured;
+    }
+
+    private void ensureCapacity(HexGeometry g) {
+        if (geo == g) return;
+        geo = g;
+        moves = new int[g.cellCount];
+        captureOf = new int[g.bits];
+        ownRoots = new int[g.cellCount];
+        head = new int[g.bits];
+        Arrays.fill(head, HexGeometry.NONE);
+        nextStone = new int[g.bits];
+        adjStart = new int[g.bits];
+        adjEnd = new int[g.bits];
+        adjList = new int[g.cellCount * 6];
+        stamp = new int[g.bits];
+        token = 0;
+        halo = new long[g.words];
+        quiet = new long[g.words];
+    }
+}
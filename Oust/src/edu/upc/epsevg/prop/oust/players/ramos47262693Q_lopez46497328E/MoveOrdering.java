@@ -0,0 +1,120 @@
+package edu.upc.epsevg.prop.oust.players.ramos47262693Q_lopez46497328E;
+
+import java.util.Arrays;
+
+/**
+ * Tablas de ordenación de jugadas para alpha-beta: killers por ply,
+ * historia por color y casilla y contra-jugada por color y jugada anterior,
+ * todo en arrays primitivos. {@link MovePicker} las consulta para decidir el
+ * orden de las jugadas sin captura.
+ *
+ * Sólo las jugadas sin captura alimentan las tablas: las capturas ya van
+ * delante por su tamaño. No es thread-safe: cada hilo de búsqueda tiene la
+ * suya.
+ */
+final class MoveOrdering {
+
+    static final int KILLERS = 2;
+
+    private static final int HISTORY_MAX = 1 << 20;
+
+    private HexGeometry geo;
+
+    private final int[] killers = new int[(BitboardStatus.MAX_PLY + 1) * KILLERS];
+    private int[] history;    // color * bits + casilla
+    private int[] counter;    // color * bits + jugada anterior
+
+    MoveOrdering() {
+        Arrays.fill(killers, MoveGenerator.ILLEGAL);
+    }
+
+    // =====================================================
+    // CONSULTA (para MovePicker)
+    // =====================================================
+
+    /** Killer {@code slot} del ply de {@code s}, o ILLEGAL. */
+    int killer(BitboardStatus s, int slot) {
+        return killers[s.ply() * KILLERS + slot];
+    }
+
+    /** Respuesta guardada a la última jugada de {@code s}, o ILLEGAL. */
+    int counterMove(BitboardStatus s) {
+        if (geo != s.geo) return MoveGenerator.ILLEGAL;
+        int prev = s.lastMove();
+        return prev < 0 ? MoveGenerator.ILLEGAL : counter[s.current * geo.bits + prev];
+    }
+
+    int history(BitboardStatus s, int cell) {
+        if (geo != s.geo) return 0;
+        return history[s.current * geo.bits + cell];
+    }
+
+    // =====================================================
+    // APRENDIZAJE
+    // =====================================================
+
+    /**
+     * La jugada {@code move}, que capturó {@code captured} piedras, ha
+     * producido un corte beta en {@code s} (ya deshecha la jugada).
+     */
+    void cutoff(BitboardStatus s, int move, int captured, int depth) {
+        if (captured > 0) return;
+        ensureCapacity(s.geo);
+
+        int ply = s.ply();
+        int colour = s.current * geo.bits;
+
+        int base = ply * KILLERS;
+        if (killers[base] != move) {
+            killers[base + 1] = killers[base];
+            killers[base] = move;
+        }
+
+        int prev = s.lastMove();
+        if (prev >= 0) counter[colour + prev] = move;
+
+        int h = history[colour + move] += depth * depth;
+        if (h >= HISTORY_MAX) {
+            for (int i = colour; i < colour + geo.bits; i++) history[i] >>= 1;
+        }
+    }
+
+    /**
+     * Entre búsquedas: la historia pierde peso y los killers (que dependen
+     * del ply relativo a la raíz) se olvidan.
+     */
+    void newSearch() {
+        Arrays.fill(killers, MoveGenerator.ILLEGAL);
+        if (history != null) {
+            for (int i = 0; i < history.length; i++) history[i] >>= 1;
+        }
+    }
+
+    /** Vacía todas las tablas, como recién creadas (entre partidas). */
+    void clear() {
+        geo = null;
+        history = null;
+        counter = null;
+        Arrays.fill(killers, MoveGenerator.ILLEGAL);
+    }
+
+    /** Copia la historia de {@code other} (las tablas por ply no se copian). */
+    void copyHistory(MoveOrdering other) {
+        if (other.geo == null) return;
+        ensureCapacity(other.geo);
+        System.arraycopy(other.history, 0, history, 0, history.length);
+    }
+
+    // =====================================================
+    // AUXILIARES
+    // =====================================================
+
+    private void ensureCapacity(HexGeometry g) {
+        if (geo == g) return;
+        geo = g;
+        history = new int[2 * g.bits];
+        counter = new int[2 * g.bits];
+        Arrays.fill(counter, MoveGenerator.ILLEGAL);
+        Arrays.fill(killers, MoveGenerator.ILLEGAL);
+    }
+}
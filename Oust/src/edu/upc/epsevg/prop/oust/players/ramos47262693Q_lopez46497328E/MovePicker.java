@@ -0,0 +1,306 @@
+package edu.upc.epsevg.prop.oust.players.ramos47262693Q_lopez46497328E;
+
+/**
+ * Entrega las jugadas de un nodo por etapas: la de la TT, las capturas de
+ * mayor a menor, los killers y la contra-jugada y, al final, las jugadas sin
+ * captura ordenadas por historia. Cada etapa se prepara al llegar a ella,
+ * así que un nodo que corta con la jugada de la TT no genera nada y uno que
+ * corta con una captura no llega a mirar las jugadas tranquilas.
+ *
+ * Sin tablas de ordenación (orden estático) el resultado es el de ordenar
+ * todas las jugadas por captura de forma estable: capturas de mayor a menor
+ * y después las demás en el orden de getMoves().
+ *
+ * Las listas viven en el propio MovePicker: se usa uno por ply y el
+ * generador se puede reutilizar en los hijos entre llamada y llamada.
+ *
+ * Para la quiescencia se puede preparar en modo sólo capturas
+ * ({@link #initCaptures}).
+ */
+final class MovePicker {
+
+    static final int NONE = MoveGenerator.ILLEGAL;
+
+    private static final int STAGE_HASH = 0;
+    private static final int STAGE_GEN_CAPTURES = 1;
+    private static final int STAGE_CAPTURES = 2;
+    private static final int STAGE_GEN_KILLERS = 3;
+    private static final int STAGE_KILLERS = 4;
+    private static final int STAGE_GEN_QUIET = 5;
+    private static final int STAGE_QUIET = 6;
+    private static final int STAGE_DONE = 7;
+
+    private BitboardStatus s;
+    private MoveGenerator gen;
+    private MoveOrdering ordering;
+    private int hashMove;
+    private int rotation;
+
+    private int stage;
+    private int yielded;
+    private boolean capturesOnly;
+    private int captureLimit;
+    private int capturesYielded;
+
+    // De dónde salió la última jugada entregada
+    private boolean lastQuiet;
+    private boolean lastFromHistory;
+
+    // Lista de la etapa en curso y su puntuación
+    private int[] moves;
+    private int[] scores;
+    private int count;
+    private int index;
+
+    // Killers y contra-jugada (ya comprobados como legales y sin captura)
+    private final int[] special = new int[MoveOrdering.KILLERS + 1];
+    private int specialCount;
+
+    private long[] quiet;
+
+    /**
+     * Prepara el nodo {@code s}. Con {@code ordering == null} no hay jugada
+     * de la TT ni killers y las jugadas tranquilas salen en orden de casilla.
+     * {@code rotation} desplaza las jugadas tranquilas antes de ordenarlas,
+     * para que distintos hilos rompan los empates de forma distinta.
+     */
+    void init(BitboardStatus s, MoveGenerator gen, MoveOrdering ordering, int hashMove, int rotation) {
+        this.s = s;
+        this.gen = gen;
+        this.ordering = ordering;
+        this.hashMove = ordering == null ? NONE : hashMove;
+        this.rotation = rotation;
+        if (moves == null || moves.length < s.geo.cellCount) {
+            moves = new int[s.geo.cellCount];
+            scores = new int[s.geo.cellCount];
+        }
+        if (quiet == null || quiet.length != s.geo.words) quiet = new long[s.geo.words];
+        stage = STAGE_HASH;
+        capturesOnly = false;
+        captureLimit = Integer.MAX_VALUE;
+        capturesYielded = 0;
+        yielded = 0;
+        count = 0;
+        index = 0;
+        specialCount = 0;
+    }
+
+    /** Prepara {@code s} entregando sólo sus capturas, de mayor a menor. */
+    void initCaptures(BitboardStatus s, MoveGenerator gen) {
+        init(s, gen, null, NONE, 0);
+        capturesOnly = true;
+        stage = STAGE_GEN_CAPTURES;
+    }
+
+    /**
+     * Entrega como mucho {@code n} capturas (las mayores, contando la de la
+     * TT si lo es); las jugadas sin captura no cambian.
+     */
+    void limitCaptures(int n) {
+        captureLimit = n;
+    }
+
+    /**
+     * Número de capturas de un nodo preparado con {@link #initCaptures}; las
+     * genera si aún no se había pedido ninguna jugada.
+     */
+    int captureCount() {
+        if (stage == STAGE_GEN_CAPTURES) {
+            prepareCaptures();
+            stage = STAGE_CAPTURES;
+        }
+        return count;
+    }
+
+    /** Mayor captura tras {@link #captureCount()} (0 si no hay ninguna). */
+    int bestCapture() {
+        return count > 0 ? scores[0] : 0;
+    }
+
+    /** Siguiente jugada, o {@link #NONE} si ya no quedan. */
+    int next() {
+        while (true) {
+            switch (stage) {
+                case STAGE_HASH:
+                    stage = STAGE_GEN_CAPTURES;
+                    int size = hashMove == NONE ? MoveGenerator.ILLEGAL : s.captureSize(hashMove);
+                    if (size >= 0) {
+                        if (size > 0) capturesYielded++;
+                        return deliver(hashMove, size == 0, false);
+                    }
+                    hashMove = NONE;
+                    break;
+
+                case STAGE_GEN_CAPTURES:
+                    prepareCaptures();
+                    stage = STAGE_CAPTURES;
+                    break;
+
+                case STAGE_CAPTURES:
+                    while (index < count && capturesYielded < captureLimit) {
+                        int m = moves[index++];
+                        if (m != hashMove) {
+                            capturesYielded++;
+                            return deliver(m, false, false);
+                        }
+                    }
+                    stage = capturesOnly ? STAGE_DONE : STAGE_GEN_KILLERS;
+                    break;
+
+                case STAGE_GEN_KILLERS:
+                    prepareKillers();
+                    stage = STAGE_KILLERS;
+                    break;
+
+                case STAGE_KILLERS:
+                    if (index < specialCount) {
+                        return deliver(special[index++], true, false);
+                    }
+                    stage = STAGE_GEN_QUIET;
+                    break;
+
+                case STAGE_GEN_QUIET:
+                    prepareQuiet();
+                    stage = STAGE_QUIET;
+                    break;
+
+                case STAGE_QUIET:
+                    if (index < count) {
+                        return deliver(moves[index++], true, true);
+                    }
+                    stage = STAGE_DONE;
+                    break;
+
+                default:
+                    return NONE;
+            }
+        }
+    }
+
+    /** Jugadas entregadas hasta ahora. */
+    int yielded() {
+        return yielded;
+    }
+
+    /** Cierto si la última jugada entregada no captura. */
+    boolean lastQuiet() {
+        return lastQuiet;
+    }
+
+    /**
+     * Cierto si la última jugada entregada salió de la última etapa: sin
+     * captura, y sin ser la de la TT, un killer ni la contra-jugada.
+     */
+    boolean lastFromHistory() {
+        return lastFromHistory;
+    }
+
+    /**
+     * Piedras que captura la última jugada entregada, si salió de la etapa
+     * de capturas.
+     */
+    int lastCapture() {
+        return scores[index - 1];
+    }
+
+    // =====================================================
+    // ETAPAS
+    // =====================================================
+
+    private int deliver(int m, boolean quiet, boolean fromHistory) {
+        yielded++;
+        lastQuiet = quiet;
+        lastFromHistory = fromHistory;
+        return m;
+    }
+
+    private void prepareCaptures() {
+        count = gen.generateCaptures(s);
+        for (int i = 0; i < count; i++) {
+            moves[i] = gen.move(i);
+            scores[i] = gen.captureOf(moves[i]);
+        }
+        sort(count);
+        index = 0;
+    }
+
+    private void prepareKillers() {
+        index = 0;
+        specialCount = 0;
+        if (ordering == null) return;
+
+        for (int k = 0; k < MoveOrdering.KILLERS; k++) {
+            addSpecial(ordering.killer(s, k));
+        }
+        addSpecial(ordering.counterMove(s));
+    }
+
+    private void addSpecial(int m) {
+        if (m == NONE || m == hashMove) return;
+        for (int i = 0; i < specialCount; i++) {
+            if (special[i] == m) return;
+        }
+        if (MoveGenerator.isQuiet(s, m)) special[specialCount++] = m;
+    }
+
+    private void prepareQuiet() {
+        gen.quietMoves(s, quiet);
+
+        count = 0;
+        for (int i = 0; i < quiet.length; i++) {
+            for (long w = quiet[i]; w != 0; w &= w - 1) {
+                int c = (i << 6) + Long.numberOfTrailingZeros(w);
+                if (c == hashMove || isSpecial(c)) continue;
+                moves[count++] = c;
+            }
+        }
+
+        if (ordering != null) {
+            if (rotation != 0 && count > 1) rotate(moves, count, rotation % count);
+            for (int i = 0; i < count; i++) scores[i] = ordering.history(s, moves[i]);
+            sort(count);
+        }
+        index = 0;
+    }
+
+    private boolean isSpecial(int m) {
+        for (int i = 0; i < specialCount; i++) {
+            if (special[i] == m) return true;
+        }
+        return false;
+    }
+
+    // =====================================================
+    // AUXILIARES
+    // =====================================================
+
+    /** Inserción estable por puntuación decreciente. */
+    private void sort(int n) {
+        for (int i = 1; i < n; i++) {
+            int m = moves[i];
+            int v = scores[i];
+            int j = i;
+            while (j > 0 && scores[j - 1] < v) {
+                moves[j] = moves[j - 1];
+                scores[j] = scores[j - 1];
+                j--;
+            }
+            moves[j] = m;
+            scores[j] = v;
+        }
+    }
+
+    /** Rota a[0, n) {@code k} posiciones a la izquierda, sin memoria extra. */
+    private static void rotate(int[] a, int n, int k) {
+        if (k == 0) return;
+        reverse(a, 0, k);
+        reverse(a, k, n);
+        reverse(a, 0, n);
+    }
+
+    private static void reverse(int[] a, int from, int to) {
+        for (int i = from, j = to - 1; i < j; i++, j--) {
+            int t = a[i]; a[i] = a[j]; a[j] = t;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package edu.upc.epsevg.prop.oust.players.ramos47262693Q_lopez46497328E;
+
+import edu.upc.epsevg.prop.oust.GameStatus;
+import java.awt.Point;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Partidas aleatorias por segundo de {@link PlayoutEngine} en las posiciones
+ * estándar ({@link BenchPositions}), comparadas con hacerlas sobre
+ * GameStatus con getMoves() y un Random nuevo por jugada, como hacía
+ * RandomPlayer.
+ *
+ * Uso: PlayoutBench [ms por posición = 1000] [peso de las capturas = 1]
+ */
+public class PlayoutBench {
+
+    private static final int MAX_MOVES = 1000;
+    private static final long SEED = 0x0057BE7CL;
+
+    public static void main(String[] args) {
+        long ms = args.length > 0 ? Long.parseLong(args[0]) : 1000;
+        int captureWeight = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+
+        List<GameStatus> positions = BenchPositions.standard();
+        System.out.println("Partidas aleatorias: " + positions.size() + " posiciones, "
+                + ms + " ms por posición, peso de las capturas " + captureWeight);
+        System.out.println("pos\tpiedras\tmotor/s\t\tGameStatus/s\tfactor");
+
+        PlayoutEngine engine = new PlayoutEngine(SEED);
+        engine.setCaptureWeight(captureWeight);
+        long nanosPerPosition = ms * 1_000_000L;
+
+        double engineTotal = 0;
+        double legacyTotal = 0;
+        for (int i = 0; i < positions.size(); i++) {
+            GameStatus gs = positions.get(i);
+            BitboardStatus origin = new BitboardStatus(gs);
+
+            double engineRate = rate(nanosPerPosition, () -> engine.playoutFrom(origin, MAX_MOVES));
+            double legacyRate = rate(nanosPerPosition, () -> legacyPlayout(gs));
+            engineTotal += engineRate;
+            legacyTotal += legacyRate;
+
+            System.out.printf("%d\t%d\t%,.0f\t\t%,.0f\t\t%.1fx%n", i,
+                    origin.count1 + origin.count2, engineRate, legacyRate, engineRate / legacyRate);
+        }
+        System.out.printf("media\t\t%,.0f\t\t%,.0f\t\t%.1fx%n",
+                engineTotal / positions.size(), legacyTotal / positions.size(), engineTotal / legacyTotal);
+    }
+
+    /** Partidas por segundo durante {@code nanos}, tras calentar la mitad. */
+    private static double rate(long nanos, Runnable playout) {
+        long end = System.nanoTime() + nanos / 2;
+        while (System.nanoTime() < end) playout.run();
+
+        long count = 0;
+        long start = System.nanoTime();
+        end = start + nanos;
+        long now;
+        do {
+            playout.run();
+            count++;
+        } while ((now = System.nanoTime()) < end);
+        return count * 1e9 / (now - start);
+    }
+
+    private static void legacyPlayout(GameStatus origin) {
+        GameStatus gs = new GameStatus(origin);
+        for (int i = 0; i < MAX_MOVES && !gs.isGameOver(); i++) {
+            List<Point> moves = gs.getMoves();
+            if (moves.isEmpty()) break;
+            gs.placeStone(moves.get(new Random().nextInt(moves.size())));
+        }
+    }
+}
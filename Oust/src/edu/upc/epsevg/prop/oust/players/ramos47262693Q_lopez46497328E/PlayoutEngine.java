@@ -0,0 +1,147 @@
+package edu.upc.epsevg.prop.oust.players.ramos47262693Q_lopez46497328E;
+
+import java.util.SplittableRandom;
+
+/**
+ * Partidas aleatorias hasta el final sobre un {@link BitboardStatus}, sin
+ * reservar memoria por jugada ni por partida.
+ *
+ * Cada jugada se elige por rechazo: se prueban casillas al azar hasta dar
+ * con una legal, lo que equivale a escoger con la misma probabilidad entre
+ * todas las jugadas legales sin generarlas. Si tras unos cuantos intentos
+ * no sale ninguna (tablero casi lleno) se generan y se elige entre ellas.
+ *
+ * Las capturas pueden pesar más que las jugadas sin captura (ver
+ * {@link #setCaptureWeight}): con peso w, una jugada sin captura sorteada
+ * sólo se acepta una de cada w veces, así que cada captura sale w veces más
+ * que cada jugada tranquila, sin dejar de sortear por rechazo.
+ *
+ * No es thread-safe: cada hilo usa el suyo.
+ */
+public final class PlayoutEngine {
+
+    // Intentos de rechazo antes de generar todas las jugadas
+    private static final int TRIES = 32;
+
+    private static final int UNKNOWN = -1;
+
+    private final SplittableRandom random;
+    private final MoveGenerator gen = new MoveGenerator();
+
+    private int captureWeight = 1;
+
+    // Captura de la última jugada de randomMove() si se acaba de comprobar
+    // con captureSize() (o es sin contacto), para no repetirlo al jugarla
+    private int lastCapture = UNKNOWN;
+
+    // Copia de trabajo de playoutFrom(), se reserva una vez por tamaño
+    private BitboardStatus scratch;
+
+    public PlayoutEngine() {
+        this(new SplittableRandom());
+    }
+
+    public PlayoutEngine(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    private PlayoutEngine(SplittableRandom random) {
+        this.random = random;
+    }
+
+    /** Un generador independiente para otro hilo, con el mismo peso. */
+    public PlayoutEngine split() {
+        PlayoutEngine e = new PlayoutEngine(random.split());
+        e.captureWeight = captureWeight;
+        return e;
+    }
+
+    /**
+     * Cuántas veces más probable es cada captura que cada jugada sin
+     * captura. 1 (por defecto) es uniforme.
+     */
+    public void setCaptureWeight(int weight) {
+        if (weight < 1) throw new IllegalArgumentException("Peso de las capturas < 1: " + weight);
+        captureWeight = weight;
+    }
+
+    public int getCaptureWeight() {
+        return captureWeight;
+    }
+
+    /**
+     * Casilla de una jugada legal al azar del jugador actual de {@code s},
+     * o {@link MoveGenerator#ILLEGAL} si no tiene ninguna. No la juega.
+     */
+    public int randomMove(BitboardStatus s) {
+        if (s.isGameOver()) return MoveGenerator.ILLEGAL;
+
+        int[] cells = s.geo.cells;
+        for (int t = 0; t < TRIES; t++) {
+            int c = cells[random.nextInt(cells.length)];
+            if (MoveGenerator.isQuiet(s, c)) {
+                if (captureWeight == 1 || random.nextInt(captureWeight) == 0) {
+                    lastCapture = 0;
+                    return c;
+                }
+            } else if ((lastCapture = s.captureSize(c)) > 0) {
+                return c;
+            }
+        }
+
+        lastCapture = UNKNOWN;
+        int n = gen.generate(s);
+        if (n == 0) return MoveGenerator.ILLEGAL;
+        if (captureWeight == 1) return gen.move(random.nextInt(n));
+
+        // Sorteo ponderado entre las generadas
+        int total = 0;
+        for (int i = 0; i < n; i++) total += weight(gen.move(i));
+        int r = random.nextInt(total);
+        for (int i = 0; ; i++) {
+            r -= weight(gen.move(i));
+            if (r < 0) return gen.move(i);
+        }
+    }
+
+    private int weight(int cell) {
+        return gen.captureOf(cell) > 0 ? captureWeight : 1;
+    }
+
+    /**
+     * Acaba la partida de {@code s} con jugadas al azar (el estado queda al
+     * final). Si dura más de {@code maxMoves} jugadas o nadie puede mover,
+     * gana quien tenga más piedras.
+     *
+     * @return índice del ganador (BitboardStatus.P1 o P2)
+     */
+    public int playout(BitboardStatus s, int maxMoves) {
+        for (int i = 0; i < maxMoves && !s.isGameOver(); i++) {
+            int m = randomMove(s);
+            if (m == MoveGenerator.ILLEGAL) break;
+            if (lastCapture == UNKNOWN) s.placeStone(m);
+            else s.placeChecked(m, lastCapture);
+        }
+        return winner(s);
+    }
+
+    /**
+     * Como {@link #playout(BitboardStatus, int)} sobre una copia de
+     * {@code origin}, que no cambia. La copia se reutiliza entre llamadas.
+     */
+    public int playoutFrom(BitboardStatus origin, int maxMoves) {
+        if (scratch == null || scratch.geo != origin.geo) scratch = new BitboardStatus(origin);
+        else scratch.copyFrom(origin);
+        return playout(scratch, maxMoves);
+    }
+
+    /**
+     * Ganador de {@code s}, o quien tenga más piedras si no ha acabado (con
+     * las mismas, quien tiene el turno).
+     */
+    static int winner(BitboardStatus s) {
+        if (s.winner >= 0) return s.winner;
+        if (s.count1 != s.count2) return s.count1 > s.count2 ? BitboardStatus.P1 : BitboardStatus.P2;
+        return s.current;
+    }
+}
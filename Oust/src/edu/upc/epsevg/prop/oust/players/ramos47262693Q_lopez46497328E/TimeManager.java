@@ -0,0 +1,97 @@
+package edu.upc.epsevg.prop.oust.players.ramos47262693Q_lopez46497328E;
+
+/**
+ * Control del tiempo de una jugada para la profundización iterativa.
+ *
+ * La búsqueda se para con una marca volátil que activan tanto
+ * {@code timeout()} como el propio plazo (límite duro). Los hilos de
+ * búsqueda no miran el reloj en cada nodo: llaman a {@link #poll()} cada
+ * {@link #POLL_INTERVAL} nodos y, entre tanto, sólo consultan su copia de
+ * la marca.
+ *
+ * El límite blando decide si vale la pena empezar otra iteración: con el
+ * factor de ramificación de las dos últimas se estima lo que tardará la
+ * siguiente y, si no acabaría antes del límite duro, no se empieza (se
+ * perdería entera).
+ */
+final class TimeManager {
+
+    /** Nodos entre consulta y consulta del reloj (potencia de 2). */
+    static final int POLL_INTERVAL = 256;
+    static final int POLL_MASK = POLL_INTERVAL - 1;
+
+    // Ramificación que se supone mientras sólo hay una iteración medida, y
+    // mínima para que una iteración barata (casi todo en la TT) no haga
+    // creer que la siguiente también lo será
+    private static final double DEFAULT_BRANCHING = 8;
+    private static final double MIN_BRANCHING = 2;
+
+    private volatile boolean stop;
+
+    private long hardDeadline;
+
+    // Última iteración completada: nodos y tiempo que ha costado ella sola
+    private long lastNodes;
+    private long lastNanos;
+    private long iterationStart;
+    private long nodesAtStart;
+    private double branching;
+
+    /** Empieza una jugada con {@code millis} milisegundos de límite duro. */
+    void start(long millis) {
+        hardDeadline = System.nanoTime() + millis * 1_000_000L;
+        lastNodes = 0;
+        lastNanos = 0;
+        branching = DEFAULT_BRANCHING;
+        stop = false;
+    }
+
+    /** Para la búsqueda en curso (desde cualquier hilo). */
+    void stop() {
+        stop = true;
+    }
+
+    /** Mira el reloj y activa la marca si se ha pasado el límite duro. */
+    boolean poll() {
+        return poll(true);
+    }
+
+    /**
+     * Como {@link #poll()}, pero con {@code deadline} falso sólo se mira la
+     * marca: para acabar una iteración aunque se pase del límite duro, que
+     * sólo cortan timeout() y stop().
+     */
+    boolean poll(boolean deadline) {
+        if (deadline && !stop && System.nanoTime() - hardDeadline >= 0) stop = true;
+        return stop;
+    }
+
+    /**
+     * El hilo principal empieza una iteración; {@code nodes} son los nodos
+     * que lleva en toda la jugada.
+     */
+    void iterationStarted(long nodes) {
+        iterationStart = System.nanoTime();
+        nodesAtStart = nodes;
+    }
+
+    /** El hilo principal ha completado la iteración empezada. */
+    void iterationDone(long nodes) {
+        long iterNodes = nodes - nodesAtStart;
+        if (lastNodes > 0) {
+            branching = Math.max(MIN_BRANCHING, (double) iterNodes / lastNodes);
+        }
+        lastNodes = Math.max(1, iterNodes);
+        lastNanos = System.nanoTime() - iterationStart;
+    }
+
+    /**
+     * Límite blando: cierto si se espera que la siguiente iteración acabe
+     * antes del límite duro.
+     */
+    boolean canStartIteration() {
+        if (poll()) return false;
+        double predicted = lastNanos * branching;
+        return predicted < hardDeadline - System.nanoTime();
+    }
+}
@@ -0,0 +1,161 @@
+package edu.upc.epsevg.prop.oust.players.ramos47262693Q_lopez46497328E;
+
+import java.util.Arrays;
+
+/**
+ * Tabla de transposición de tamaño fijo sobre arrays primitivos.
+ *
+ * Cada entrada son dos {@code long}: la clave Zobrist completa y los datos
+ * empaquetados (valor, tipo de cota, jugada, profundidad y generación). Las
+ * entradas se agrupan en cubos de {@link #WAYS}; al guardar se reutiliza la
+ * entrada con la misma clave y, si no hay, se sustituye la menos valiosa del
+ * cubo (poca profundidad y generación antigua). La entrada de la misma clave
+ * sólo se pisa con una búsqueda al menos igual de profunda o si es de una
+ * búsqueda anterior. Ni probe ni store reservan memoria.
+ *
+ * Se comparte entre los hilos de Lazy SMP sin cerrojos: en lugar de la clave
+ * se guarda {@code clave ^ datos}, así que una entrada escrita a medias por
+ * dos hilos a la vez no cuadra con ninguna clave y se trata como un fallo.
+ * Cada {@code long} se lee y escribe de una vez (JVM de 64 bits).
+ */
+final class TranspositionTable {
+
+    static final long MISS = 0L;
+
+    // Tipo de valor guardado
+    static final int EXACT = 0;
+    static final int LOWER = 1;   // valor >= guardado (corte beta)
+    static final int UPPER = 2;   // valor <= guardado (ningún hijo superó alpha)
+
+    private static final int WAYS = 4;
+    private static final int ENTRY_BYTES = 16;
+
+    // Peso de cada búsqueda de antigüedad frente a un nivel de profundidad
+    private static final int AGE_WEIGHT = 4;
+
+    // Formato de los datos:
+    //   bits  0-31  valor
+    //   bits 32-47  jugada (0xFFFF = ninguna)
+    //   bits 48-55  profundidad + 1 (nunca 0: así datos == 0 es entrada vacía)
+    //   bits 56-61  generación
+    //   bits 62-63  tipo de cota
+    private static final int MOVE_SHIFT = 32;
+    private static final int DEPTH_SHIFT = 48;
+    private static final int GEN_SHIFT = 56;
+    private static final int BOUND_SHIFT = 62;
+    private static final int NO_MOVE = 0xFFFF;
+    private static final int GEN_MASK = 0x3F;
+
+    private final long[] keys;      // clave ^ datos
+    private final long[] data;
+    private final int bucketMask;
+
+    // Sólo cambia entre búsquedas, antes de lanzar los hilos
+    private int generation;
+
+    TranspositionTable(int megabytes) {
+        long entries = (long) megabytes * 1024 * 1024 / ENTRY_BYTES;
+        int buckets = Integer.highestOneBit((int) Math.max(1, Math.min(entries / WAYS, 1 << 26)));
+
+        keys = new long[buckets * WAYS];
+        data = new long[buckets * WAYS];
+        bucketMask = buckets - 1;
+    }
+
+    // =====================================================
+    // CONSULTA Y GUARDADO
+    // =====================================================
+
+    /** Datos guardados para {@code key}, o {@link #MISS}. */
+    long probe(long key) {
+        int base = bucket(key);
+        for (int i = base; i < base + WAYS; i++) {
+            long d = data[i];
+            if (d != MISS && (keys[i] ^ d) == key) return d;
+        }
+        return MISS;
+    }
+
+    void store(long key, int value, int bound, int move, int depth) {
+        int base = bucket(key);
+        int victim = base;
+        int worst = Integer.MAX_VALUE;
+
+        for (int i = base; i < base + WAYS; i++) {
+            long d = data[i];
+            if (d == MISS) {
+                victim = i;
+                break;
+            }
+            if ((keys[i] ^ d) == key) {
+                // Un resultado de menos profundidad de esta misma búsqueda
+                // (también uno exacto de la quiescencia) no sustituye a lo
+                // que ya se sabe de la posición ni a su jugada
+                if (depth < depth(d) && generation(d) == generation) return;
+                victim = i;
+                break;
+            }
+            int age = (generation - generation(d)) & GEN_MASK;
+            int worth = depth(d) - AGE_WEIGHT * age;
+            if (worth < worst) {
+                worst = worth;
+                victim = i;
+            }
+        }
+
+        long d = pack(value, bound, move, depth, generation);
+        keys[victim] = key ^ d;
+        data[victim] = d;
+    }
+
+    /** Marca el inicio de una nueva búsqueda: las entradas viejas envejecen. */
+    void newSearch() {
+        generation = (generation + 1) & GEN_MASK;
+    }
+
+    void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(data, MISS);
+        generation = 0;
+    }
+
+    // =====================================================
+    // EMPAQUETADO
+    // =====================================================
+
+    static int value(long d) {
+        return (int) d;
+    }
+
+    static int bound(long d) {
+        return (int) (d >>> BOUND_SHIFT);
+    }
+
+    static int move(long d) {
+        int m = (int) (d >>> MOVE_SHIFT) & 0xFFFF;
+        return m == NO_MOVE ? -1 : m;
+    }
+
+    static int depth(long d) {
+        return ((int) (d >>> DEPTH_SHIFT) & 0xFF) - 1;
+    }
+
+    private static int generation(long d) {
+        return (int) (d >>> GEN_SHIFT) & GEN_MASK;
+    }
+
+    private static long pack(int value, int bound, int move, int depth, int gen) {
+        long m = move < 0 ? NO_MOVE : move;
+        long dep = Math.min(Math.max(depth, 0), 254) + 1;
+        return (value & 0xFFFFFFFFL)
+                | (m << MOVE_SHIFT)
+                | (dep << DEPTH_SHIFT)
+                | ((long) gen << GEN_SHIFT)
+                | ((long) bound << BOUND_SHIFT);
+    }
+
+    private int bucket(long key) {
+        // Los bits altos eligen el cubo; la clave completa se compara en probe
+        return ((int) (key >>> 32) & bucketMask) * WAYS;
+    }
+}
@@ -0,0 +1,33 @@
+package edu.upc.epsevg.prop.oust.players.ramos47262693Q_lopez46497328E;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pools de hilos auxiliares de los jugadores.
+ *
+ * Los hilos son demonio y mueren tras IDLE_SECONDS sin trabajo: un jugador
+ * que se abandona sin llamar a close() (un torneo crea dos por partida) no
+ * deja hilos vivos. Entre jugada y jugada el pool sigue caliente.
+ */
+final class WorkerPools {
+
+    private static final long IDLE_SECONDS = 5;
+
+    private WorkerPools() {
+    }
+
+    /** Pool de {@code threads} hilos llamados {@code name}. */
+    static ExecutorService fixed(String name, int threads) {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads,
+                IDLE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, name);
+                    t.setDaemon(true);
+                    return t;
+                });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+}